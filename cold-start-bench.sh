@@ -0,0 +1,184 @@
+#!/bin/bash
+
+# Measures cold start and first-request latency under the Lambda Runtime Interface Emulator.
+#
+#   ./cold-start-bench.sh [jvm|native] [runs]
+#
+# The timed request is a real one that reaches S3 (BENCH_REQUEST):
+#   listing   GET /file/user/{user}                  (default)
+#   download  GET /file/{fileId}?redirect=true       index lookup and presigned URL
+#   health    GET /health                            no S3 call
+# A file is uploaded for it in an untimed session first. Point S3_ENDPOINT at
+# a stub such as LocalStack (http://localhost:4566, bucket must exist) to run
+# without AWS; otherwise S3_BUCKET_NAME must be a real bucket you can write to.
+#
+# Requires aws-lambda-rie on the PATH. Set MAX_COLD_START_MS to fail when the
+# median first request is slower, and SKIP_BUILD=true to reuse the last build.
+
+MODE=${1:-jvm}
+RUNS=${2:-5}
+PORT=${RIE_PORT:-9000}
+S3_BUCKET_NAME=${S3_BUCKET_NAME:-file-handler-bucket}
+AWS_REGION=${AWS_REGION:-us-east-1}
+BENCH_REQUEST=${BENCH_REQUEST:-listing}
+BENCH_USER=${BENCH_USER:-cold-start-bench}
+INVOKE_URL="http://localhost:$PORT/2015-03-31/functions/function/invocations"
+
+# API Gateway HTTP API (payload 2.0) event: method, path, query string, extra headers, base64 body
+event() {
+    local body="${5:-}"
+    local encoded=false
+    [ -n "$body" ] && encoded=true
+    echo "{\"version\":\"2.0\",\"routeKey\":\"$1 $2\",\"rawPath\":\"$2\",\"rawQueryString\":\"$3\",\"headers\":{\"accept\":\"*/*\"$4},\"requestContext\":{\"http\":{\"method\":\"$1\",\"path\":\"$2\",\"protocol\":\"HTTP/1.1\",\"sourceIp\":\"127.0.0.1\"},\"stage\":\"\$default\"},\"body\":\"$body\",\"isBase64Encoded\":$encoded}"
+}
+
+if [ -n "$S3_ENDPOINT" ]; then
+    export QUARKUS_S3_ENDPOINT_OVERRIDE=$S3_ENDPOINT
+    export QUARKUS_S3_PATH_STYLE_ACCESS=true
+    export QUARKUS_S3_AWS_CREDENTIALS_TYPE=static
+    export QUARKUS_S3_AWS_CREDENTIALS_STATIC_PROVIDER_ACCESS_KEY_ID=${AWS_ACCESS_KEY_ID:-test}
+    export QUARKUS_S3_AWS_CREDENTIALS_STATIC_PROVIDER_SECRET_ACCESS_KEY=${AWS_SECRET_ACCESS_KEY:-test}
+fi
+
+if ! command -v aws-lambda-rie >/dev/null 2>&1; then
+    echo "aws-lambda-rie not found. Install it from https://github.com/aws/aws-lambda-runtime-interface-emulator"
+    exit 1
+fi
+
+case $MODE in
+    jvm)
+        BUILD_ARGS="-DskipTests"
+        ;;
+    native)
+        BUILD_ARGS="-DskipTests -Pnative -Dquarkus.native.container-build=true"
+        ;;
+    *)
+        echo "Unknown mode: $MODE (expected jvm or native)"
+        exit 1
+        ;;
+esac
+
+if [ "$SKIP_BUILD" != "true" ]; then
+    echo "Building ($MODE)..."
+    mvn -B -q clean package $BUILD_ARGS
+    if [ $? -ne 0 ]; then
+        echo "Build failed!"
+        exit 1
+    fi
+fi
+
+if [ "$MODE" = "jvm" ]; then
+    COMMAND="java -jar target/quarkus-app/quarkus-run.jar"
+else
+    COMMAND=$(ls target/*-runner 2>/dev/null | head -1)
+    if [ -z "$COMMAND" ]; then
+        echo "Error: native runner not found in target/"
+        exit 1
+    fi
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+start_emulator() {
+    S3_BUCKET_NAME=$S3_BUCKET_NAME AWS_REGION=$AWS_REGION \
+        aws-lambda-rie --runtime-interface-emulator-address "0.0.0.0:$PORT" $COMMAND >"$LOG" 2>&1 &
+    RIE_PID=$!
+
+    for i in $(seq 1 50); do
+        curl -s -o /dev/null "http://localhost:$PORT" && break
+        sleep 0.1
+    done
+}
+
+stop_emulator() {
+    kill $RIE_PID 2>/dev/null
+    wait $RIE_PID 2>/dev/null
+}
+
+# Prints the latency in ms, or fails unless the function answered 2xx or 3xx
+invoke() {
+    local start end response
+    start=$(now_ms)
+    response=$(curl -s --max-time 60 -X POST "$INVOKE_URL" -d "$1") || return 1
+    end=$(now_ms)
+    echo "$response" | grep -q '"statusCode":[23][0-9][0-9]' || return 1
+    echo $((end - start))
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+LOG=$(mktemp)
+
+case $BENCH_REQUEST in
+    listing|download)
+        # Upload the file the timed request reads, in a session of its own
+        start_emulator
+        UPLOAD=$(curl -s --max-time 60 -X POST "$INVOKE_URL" -d "$(event PUT "/file/$BENCH_USER/bench.pdf" "" \
+            ',"content-type":"application/octet-stream"' "$(printf '%%PDF-1.4\n%%%%EOF\n' | base64 | tr -d '\n')")")
+        stop_emulator
+        FILE_ID=$(echo "$UPLOAD" | grep -o '[0-9a-f]\{8\}-[0-9a-f]\{4\}-[0-9a-f]\{4\}-[0-9a-f]\{4\}-[0-9a-f]\{12\}' | head -1)
+        if [ -z "$FILE_ID" ]; then
+            echo "Seed upload failed: $UPLOAD"
+            cat "$LOG"
+            rm -f "$LOG"
+            exit 1
+        fi
+        echo "Seeded $BENCH_USER/bench.pdf as $FILE_ID"
+        if [ "$BENCH_REQUEST" = "listing" ]; then
+            EVENT=$(event GET "/file/user/$BENCH_USER" "" "")
+        else
+            EVENT=$(event GET "/file/$FILE_ID" "redirect=true" "")
+        fi
+        ;;
+    health)
+        EVENT=$(event GET /health "" "")
+        ;;
+    *)
+        echo "Unknown BENCH_REQUEST: $BENCH_REQUEST (expected listing, download or health)"
+        exit 1
+        ;;
+esac
+
+STARTUP=()
+FIRST=()
+SECOND=()
+
+for run in $(seq 1 "$RUNS"); do
+    # The emulator starts the runtime on the first invocation, so that request includes init
+    start_emulator
+
+    first=$(invoke "$EVENT")
+    second=$(invoke "$EVENT")
+    stop_emulator
+
+    if [ -z "$first" ] || [ -z "$second" ]; then
+        echo "Run $run: invocation failed, emulator log:"
+        cat "$LOG"
+        rm -f "$LOG"
+        exit 1
+    fi
+
+    started=$(grep -o 'started in [0-9.]*s' "$LOG" | head -1 | grep -o '[0-9.]*' | awk '{ printf "%d", $1 * 1000 }')
+    STARTUP+=("${started:-0}")
+    FIRST+=("$first")
+    SECOND+=("$second")
+    echo "Run $run: startup ${started:-?} ms, first request $first ms, second request $second ms"
+done
+
+rm -f "$LOG"
+
+STARTUP_MEDIAN=$(printf '%s\n' "${STARTUP[@]}" | median)
+FIRST_MEDIAN=$(printf '%s\n' "${FIRST[@]}" | median)
+SECOND_MEDIAN=$(printf '%s\n' "${SECOND[@]}" | median)
+
+echo ""
+echo "$MODE, $BENCH_REQUEST over $RUNS runs (median): startup $STARTUP_MEDIAN ms, first request $FIRST_MEDIAN ms, second request $SECOND_MEDIAN ms"
+
+if [ -n "$MAX_COLD_START_MS" ] && [ "$FIRST_MEDIAN" -gt "$MAX_COLD_START_MS" ]; then
+    echo "First request median $FIRST_MEDIAN ms exceeds MAX_COLD_START_MS=$MAX_COLD_START_MS"
+    exit 1
+fi
@@ -0,0 +1,82 @@
+package com.lopez.filehandler.dto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Base64 encode and decode of file content as the service does it: encoding
+ * from a stream into the JSON generator (downloads) and decoding from the
+ * JSON parser into a stream (uploads). The {@code jdk*} benchmarks build the
+ * whole String or byte[] instead and show what streaming saves per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Base64Benchmark {
+
+    @Param({ "4096", "65536", "1048576" })
+    int fileSize;
+
+    byte[] file;
+    String encoded;
+    byte[] json;
+    JsonFactory jsonFactory;
+
+    @Setup
+    public void setUp() {
+        file = new byte[fileSize];
+        new Random(42).nextBytes(file);
+        encoded = Base64.getEncoder().encodeToString(file);
+        json = ("\"" + encoded + "\"").getBytes(StandardCharsets.UTF_8);
+        jsonFactory = new JsonFactory();
+    }
+
+    @Benchmark
+    public void streamingEncode() throws IOException {
+        try (JsonGenerator gen = jsonFactory.createGenerator(OutputStream.nullOutputStream())) {
+            gen.writeBinary(new ByteArrayInputStream(file), -1);
+        }
+    }
+
+    @Benchmark
+    public String jdkEncodeToString() {
+        return Base64.getEncoder().encodeToString(file);
+    }
+
+    @Benchmark
+    public int streamingDecode() throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            parser.nextToken();
+            return parser.readBinaryValue(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public byte[] jdkDecodeString() {
+        return Base64.getDecoder().decode(encoded);
+    }
+}
@@ -0,0 +1,87 @@
+package com.lopez.filehandler.dto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Jackson serialization of the listing responses, written to a discarding
+ * stream the way the REST layer writes to the response. The mapper mirrors
+ * the {@code quarkus.jackson.*} settings in application.properties.
+ *
+ * Content responses are rebuilt per invocation because the serializer
+ * consumes and closes each body stream; those objects are a small part of
+ * the allocation next to the base64 output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    static final int CONTENT_SIZE = 64 * 1024;
+
+    @Param({ "10", "100" })
+    int fileCount;
+
+    ObjectMapper objectMapper;
+    List<FileResponse> files;
+    byte[] content;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        files = new ArrayList<>(fileCount);
+        Random random = new Random(42);
+        for (int i = 0; i < fileCount; i++) {
+            String fileId = new UUID(random.nextLong(), random.nextLong()).toString();
+            String fileName = "document-" + i + ".pdf";
+            files.add(new FileResponse(fileId, fileName, "application/pdf",
+                    "users/user-1/" + fileId + "_" + fileName, CONTENT_SIZE, "2024-01-01T00:00:00Z"));
+        }
+
+        content = new byte[CONTENT_SIZE];
+        random.nextBytes(content);
+    }
+
+    @Benchmark
+    public void fileList() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), ApiResponse.success(files));
+    }
+
+    @Benchmark
+    public void fileCollectionWithContent() throws IOException {
+        List<FileResponseWithContent> withContent = new ArrayList<>(files.size());
+        for (FileResponse file : files) {
+            withContent.add(new FileResponseWithContent(file.getFileId(), file.getFileName(), file.getContentType(),
+                    file.getS3Key(), file.getSize(), file.getUploadDate(), new ByteArrayInputStream(content)));
+        }
+        FileCollectionResponseWithContent response = new FileCollectionResponseWithContent("user-1", withContent);
+        objectMapper.writeValue(OutputStream.nullOutputStream(), ApiResponse.success(response));
+    }
+}
@@ -0,0 +1,65 @@
+package com.lopez.filehandler.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key building and parsing, which runs for every listed object. The
+ * {@code split*} and {@code format*} benchmarks are the implementations
+ * S3Keys replaced, kept as a baseline. Run with {@code -prof gc} and compare
+ * gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class S3KeysBenchmark {
+
+    String userId = "3f2c9a7e-user";
+    String fileId = "0d6f4b8a-5c1e-4f3a-9b2d-7e8c1a2b3c4d";
+    String fileName = "quarterly-report.pdf";
+    String key = "users/3f2c9a7e-user/0d6f4b8a-5c1e-4f3a-9b2d-7e8c1a2b3c4d_quarterly-report.pdf";
+
+    @Benchmark
+    public String fileKey() {
+        return S3Keys.fileKey(userId, fileId, fileName);
+    }
+
+    @Benchmark
+    public String formatFileKey() {
+        return String.format("users/%s/%s_%s", userId, fileId, fileName);
+    }
+
+    @Benchmark
+    public String fileId() {
+        return S3Keys.fileId(key);
+    }
+
+    @Benchmark
+    public String splitFileId() {
+        String[] parts = key.split("/");
+        String name = parts[parts.length - 1];
+        return name.split("_")[0];
+    }
+
+    @Benchmark
+    public String objectName() {
+        return S3Keys.objectName(key);
+    }
+
+    @Benchmark
+    public String contentType() {
+        return S3Keys.contentType(key);
+    }
+}
@@ -0,0 +1,84 @@
+package com.lopez.filehandler.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lopez.filehandler.dto.FileUploadRequest;
+
+/**
+ * Compares the old POST /file parse (String body plus a new ObjectMapper per
+ * request) with the streaming JsonUploadReader. Run with {@code -prof gc}
+ * and compare gc.alloc.rate.norm (bytes allocated per request).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadParseBenchmark {
+
+    @Param({ "65536", "1048576", "5242880" })
+    int fileSize;
+
+    byte[] body;
+    JsonUploadReader reader;
+
+    @Setup
+    public void setUp() {
+        byte[] file = new byte[fileSize];
+        new Random(42).nextBytes(file);
+        String json = "{\"userId\":\"user-1\",\"fileName\":\"report.pdf\",\"contentType\":\"application/pdf\","
+                + "\"fileData\":\"" + Base64.getEncoder().encodeToString(file) + "\"}";
+        body = json.getBytes(StandardCharsets.UTF_8);
+        reader = new JsonUploadReader(new ObjectMapper().getFactory(), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public FileUploadRequest stringBodyWithNewObjectMapper() throws IOException {
+        String rawBody = new String(body, StandardCharsets.UTF_8);
+        return new ObjectMapper().readValue(rawBody, FileUploadRequest.class);
+    }
+
+    @Benchmark
+    public long streamingReader() throws IOException {
+        CountingSink sink = new CountingSink();
+        reader.read(new ByteArrayInputStream(body), (userId, fileName, contentType) -> sink);
+        return sink.count;
+    }
+
+    /**
+     * Stands in for the S3 upload stream so only parse allocations are measured.
+     */
+    static class CountingSink extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
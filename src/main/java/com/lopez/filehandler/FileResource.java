@@ -1,20 +1,60 @@
 package com.lopez.filehandler;
 
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
+import org.jboss.resteasy.reactive.RestForm;
+import org.jboss.resteasy.reactive.RestMulti;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lopez.filehandler.admission.AdmissionCost;
 import com.lopez.filehandler.dto.ApiResponse;
+import com.lopez.filehandler.dto.DeleteResult;
 import com.lopez.filehandler.dto.FileCollectionResponse;
 import com.lopez.filehandler.dto.FileCollectionResponseWithContent;
+import com.lopez.filehandler.dto.FileIndexEntry;
+import com.lopez.filehandler.dto.FileInfo;
+import com.lopez.filehandler.dto.FilePage;
 import com.lopez.filehandler.dto.FileResponse;
 import com.lopez.filehandler.dto.FileResponseWithContent;
 import com.lopez.filehandler.dto.FileUploadRequest;
+import com.lopez.filehandler.dto.FileUploadResult;
+import com.lopez.filehandler.dto.StreamedFile;
+import com.lopez.filehandler.filter.BufferedBody;
+import com.lopez.filehandler.service.ByteRange;
+import com.lopez.filehandler.service.ContentDisposition;
 import com.lopez.filehandler.service.FileService;
+import com.lopez.filehandler.service.PresignService;
+import com.lopez.filehandler.service.ReactiveFileService;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
 
 import jakarta.inject.Inject;
 import java.util.ArrayList;
@@ -22,44 +62,76 @@ import java.util.List;
 
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
-import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-
-import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-
-import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
-import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
-
-import java.time.Duration;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.RuntimeDelegate;
 
 @Path("/file")
 @Produces(MediaType.APPLICATION_JSON)
 public class FileResource {
 
     private static final Logger logger = Logger.getLogger(FileResource.class);
+    private static final int DOWNLOAD_BUFFER_SIZE = 8192;
+    private static final String ASYNC_UNAVAILABLE = "Non-blocking endpoints require the s3 storage backend";
+    private static final RuntimeDelegate.HeaderDelegate<EntityTag> ETAG_HEADER =
+            RuntimeDelegate.getInstance().createHeaderDelegate(EntityTag.class);
 
     @Inject
     FileService fileService;
 
+    @Inject
+    ReactiveFileService reactiveFileService;
+
+    @Inject
+    PresignService presignService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "file-handler.download.redirect", defaultValue = "false")
+    boolean redirectDownloads;
+
+    @ConfigProperty(name = "file-handler.download.cache-control", defaultValue = "public, max-age=31536000, immutable")
+    String downloadCacheControl;
+
     @GET
-    public Response getAllFiles() {
+    @AdmissionCost(2)
+    public Response getAllFiles(
+            @QueryParam("limit") Integer limit,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("stream") boolean stream) {
         try {
-            ApiResponse<List<FileResponse>> result = fileService.getAllFiles();
+            if (stream) {
+                return Response.ok(streamFileList(null, generator -> {
+                    fileService.streamAllFiles(file -> writeItem(generator, file));
+                    return null;
+                })).build();
+            }
+
+            ApiResponse<FilePage> result = fileService.getAllFiles(limit, cursor);
 
             java.util.Map<String, Object> response = new java.util.HashMap<>();
             response.put("success", result.isSuccess());
             response.put("message", result.getMessage());
-            response.put("data", result.getData());
+            if (result.getData() != null) {
+                response.put("data", result.getData().getFiles());
+                response.put("nextCursor", result.getData().getNextCursor());
+            }
 
             if (result.isSuccess()) {
                 return Response.ok(response).build();
@@ -78,36 +150,17 @@ public class FileResource {
 
     @GET
     @Path("/s3/{bucketName}/{userId}/{fileName}")
+    @AdmissionCost(1)
     public Response createPresignedUrl(
             @PathParam("bucketName") String bucketName,
             @PathParam("userId") String userId,
             @PathParam("fileName") String fileName) {
 
-        try (S3Presigner presigner = S3Presigner.builder()
-                .region(Region.US_EAST_1)
-                .credentialsProvider(DefaultCredentialsProvider.create())
-                .build()) {
+        try {
             String keyName = userId + "/" + fileName;
 
             logger.infof("Creating presigned URL for bucket: %s, key: %s", bucketName, keyName);
-            PutObjectRequest objectRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(keyName)
-                    .build();
-
-            PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
-                    .signatureDuration(Duration.ofMinutes(1)) // URL valid for 1 minute
-                    .putObjectRequest(objectRequest)
-                    .build();
-
-            PresignedPutObjectRequest presignedRequest = presigner.presignPutObject(presignRequest);
-
-            String presignedUrl = presignedRequest.url().toString();
-
-            // Log info if needed
-            logger.infof("HTTP method: [%s]", presignedRequest.httpRequest().method());
-            logger.infof("Headers: %s", presignedRequest.httpRequest().headers());
-            logger.infof("Presigned URL to upload a file to: %s", presignedUrl);
+            String presignedUrl = presignService.presignPut(bucketName, keyName);
 
             return Response.ok(Map.of("url", presignedUrl)).build();
 
@@ -118,33 +171,87 @@ public class FileResource {
     }
 
     @POST
-    public Response uploadFile(String rawBody, @Context HttpHeaders headers) {
+    @AdmissionCost(2)
+    public Response uploadFile(InputStream body, @Context HttpHeaders headers) {
         try {
-            logger.infof("POST /file - Content-Type: %s", headers.getHeaderString("Content-Type"));
-            logger.infof("POST /file - Raw body length: %d", rawBody != null ? rawBody.length() : 0);
-            logger.infof("POST /file - Raw body preview: %s",
-                    rawBody != null ? rawBody.substring(0, Math.min(100, rawBody.length())) : "null");
+            logger.debugf("POST /file - Content-Type: %s", headers.getHeaderString("Content-Type"));
+
+            ApiResponse<FileResponse> result = fileService.uploadFile(body);
 
-            if (rawBody == null || rawBody.trim().isEmpty()) {
+            if (result.isSuccess()) {
+                return Response.ok(result).build();
+            } else {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(ApiResponse.badRequest("Request body is required"))
+                        .entity(result)
                         .build();
             }
+        } catch (Exception e) {
+            logger.error("Error in uploadFile endpoint", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Internal server error: " + e.getMessage()))
+                    .build();
+        }
+    }
 
-            // Try to parse as FileUploadRequest
-            FileUploadRequest request;
-            try {
-                request = new com.fasterxml.jackson.databind.ObjectMapper().readValue(rawBody, FileUploadRequest.class);
-                logger.infof("Successfully parsed request - userId: %s, fileName: %s", request.getUserId(),
-                        request.getFileName());
-            } catch (Exception parseError) {
-                logger.errorf("Failed to parse JSON: %s", parseError.getMessage());
+    /**
+     * Uploads a raw binary body. The object content type comes from the
+     * X-File-Content-Type header, or from the file extension when absent.
+     * An optional X-Content-SHA256 header (hex) lets a deduplicated upload of
+     * content the user already stores skip the transfer to S3.
+     */
+    @PUT
+    @Path("/{userId}/{fileName}")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    @AdmissionCost(2)
+    public Response uploadBinaryFile(
+            @PathParam("userId") String userId,
+            @PathParam("fileName") String fileName,
+            @HeaderParam("X-File-Content-Type") String fileContentType,
+            @HeaderParam("X-Content-SHA256") String contentSha256,
+            InputStream body) {
+        try {
+            String contentType = fileContentType != null ? fileContentType : getContentTypeFromFileName(fileName);
+            ApiResponse<FileResponse> result = fileService.uploadFile(userId,
+                    new FileInfo(fileName, contentType, -1, body), contentSha256);
+
+            if (result.isSuccess()) {
+                return Response.ok(result).build();
+            } else {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(ApiResponse.badRequest("Invalid JSON format: " + parseError.getMessage()))
+                        .entity(result)
+                        .build();
+            }
+        } catch (Exception e) {
+            logger.error("Error in uploadBinaryFile endpoint", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Internal server error"))
+                    .build();
+        }
+    }
+
+    /**
+     * Uploads a file sent as multipart/form-data with a {@code userId} field and
+     * a {@code file} part. The part is spooled to disk by the HTTP layer and
+     * streamed from there, never held in memory.
+     */
+    @POST
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    @AdmissionCost(2)
+    public Response uploadMultipartFile(@RestForm("userId") String userId, @RestForm("file") FileUpload file) {
+        try {
+            if (userId == null || file == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(ApiResponse.badRequest("Form fields userId and file are required"))
                         .build();
             }
 
-            ApiResponse<FileResponse> result = fileService.uploadFile(request);
+            String contentType = file.contentType();
+            if (contentType == null || MediaType.APPLICATION_OCTET_STREAM.equals(contentType)) {
+                contentType = getContentTypeFromFileName(file.fileName());
+            }
+            ApiResponse<FileResponse> result = fileService.uploadFile(userId,
+                    new FileInfo(file.fileName(), contentType, file.size(), Files.newInputStream(file.uploadedFile())),
+                    null);
 
             if (result.isSuccess()) {
                 return Response.ok(result).build();
@@ -154,16 +261,19 @@ public class FileResource {
                         .build();
             }
         } catch (Exception e) {
-            logger.error("Error in uploadFile endpoint", e);
+            logger.error("Error in uploadMultipartFile endpoint", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(ApiResponse.error("Internal server error: " + e.getMessage()))
+                    .entity(ApiResponse.error("Internal server error"))
                     .build();
         }
     }
 
     @POST
     @Path("/multiple")
-    public Response uploadMultipleFiles(List<FileUploadRequest> requests) {
+    @BufferedBody
+    @AdmissionCost(10)
+    public Response uploadMultipleFiles(List<FileUploadRequest> requests,
+            @QueryParam("atomic") @DefaultValue("true") boolean atomic) {
         try {
             logger.infof("POST /file/multiple - Number of requests: %d", requests != null ? requests.size() : 0);
             if (requests == null || requests.isEmpty()) {
@@ -173,7 +283,7 @@ public class FileResource {
             }
 
             String userId = requests.get(0).getUserId();
-            ApiResponse<List<FileResponse>> result = fileService.uploadMultipleFiles(userId, requests);
+            ApiResponse<List<FileUploadResult>> result = fileService.uploadMultipleFiles(userId, requests, atomic);
 
             if (result.isSuccess()) {
                 return Response.ok(result).build();
@@ -192,17 +302,47 @@ public class FileResource {
 
     @GET
     @Path("/user/{userId}")
-    public Response getUserFiles(@PathParam("userId") String userId) {
+    @AdmissionCost(value = 2, withContent = 20)
+    public Response getUserFiles(
+            @PathParam("userId") String userId,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("stream") boolean stream,
+            @QueryParam("include") String include) {
         try {
+            boolean withContent = "content".equals(include);
+
+            if (stream) {
+                return Response.ok(streamFileList(userId, withContent
+                        ? generator -> fileService.streamUserFilesWithContent(
+                                userId, cursor, file -> writeItem(generator, file))
+                        : generator -> {
+                            fileService.streamUserFiles(userId, file -> writeItem(generator, file));
+                            return null;
+                        }))
+                        .build();
+            }
 
-            ApiResponse<FileCollectionResponseWithContent> result = fileService.getUserFiles(userId);
+            ApiResponse<?> result = withContent
+                    ? fileService.getUserFilesWithContent(userId, limit, cursor)
+                    : fileService.getUserFiles(userId, limit, cursor);
 
             java.util.Map<String, Object> response = new java.util.HashMap<>();
             response.put("success", result.isSuccess());
             response.put("message", result.getMessage());
             response.put("data", result.getData());
 
-            if (result.isSuccess()) {
+            if (result.isSuccess() && result.getData() instanceof Closeable) {
+                // Content bodies are opened while this is written; unread ones are closed afterwards
+                Closeable bodies = (Closeable) result.getData();
+                return Response.ok((StreamingOutput) output -> {
+                    try {
+                        objectMapper.writeValue(output, response);
+                    } finally {
+                        bodies.close();
+                    }
+                }).build();
+            } else if (result.isSuccess()) {
                 return Response.ok(response).build();
             } else {
                 return Response.status(Response.Status.NOT_FOUND)
@@ -219,16 +359,74 @@ public class FileResource {
 
     @GET
     @Path("/{fileId}")
-    public Response downloadFileById(@PathParam("fileId") String fileId) {
+    @AdmissionCost(1)
+    public Response downloadFileById(@PathParam("fileId") String fileId, @QueryParam("redirect") Boolean redirect,
+            @HeaderParam("Range") String rangeHeader, @HeaderParam("If-Range") String ifRange,
+            @Context Request request) {
         try {
+            // Backends without presigned URLs always proxy the download
+            if ((redirect != null ? redirect : redirectDownloads) && fileService.canRedirectDownloads()) {
+                return redirectToS3(fileId);
+            }
 
-            ApiResponse<byte[]> result = fileService.downloadFileById(fileId);
+            // Validators come from the file index, so a revalidation never opens the object
+            ApiResponse<FileIndexEntry> metadata = fileService.getFileMetadata(fileId);
+            if (!metadata.isSuccess()) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .header("Content-Type", "application/json")
+                        .entity(metadata)
+                        .build();
+            }
+            EntityTag etag = entityTag(metadata.getData().getEtag());
+            // HTTP dates have second precision; If-Modified-Since would never match otherwise
+            Date lastModified = Date.from(
+                    Instant.parse(metadata.getData().getLastModified()).truncatedTo(ChronoUnit.SECONDS));
+
+            Response.ResponseBuilder precondition = request.evaluatePreconditions(lastModified, etag);
+            if (precondition != null) {
+                return precondition
+                        .tag(etag)
+                        .header("Cache-Control", downloadCacheControl)
+                        .build();
+            }
 
-            if (result.isSuccess()) {
-                return Response.ok(result.getData())
-                        .header("Content-Disposition", "attachment; filename=\"file_" + fileId + "\"")
-                        .header("Content-Type", "application/octet-stream")
+            long size = metadata.getData().getSize();
+            List<ByteRange> ranges = ifRangeMatches(ifRange, etag, lastModified)
+                    ? ByteRange.parse(rangeHeader, size)
+                    : null;
+            if (ranges != null && ranges.isEmpty()) {
+                return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", "bytes */" + size)
+                        .header("Accept-Ranges", "bytes")
                         .build();
+            }
+            if (ranges != null) {
+                Response.ResponseBuilder builder = ranges.size() == 1
+                        ? singleRange(fileId, ranges.get(0), size)
+                        : multipleRanges(fileId, ranges, size, metadata.getData().getContentType());
+                return builder
+                        .header("Accept-Ranges", "bytes")
+                        .header("Cache-Control", downloadCacheControl)
+                        .tag(etag)
+                        .lastModified(lastModified)
+                        .build();
+            }
+
+            ApiResponse<FileInfo> result = fileService.downloadFileById(fileId);
+
+            if (result.isSuccess()) {
+                FileInfo file = result.getData();
+                Response.ResponseBuilder builder = Response.ok(streamBody(file))
+                        .header("Content-Disposition", ContentDisposition.attachment(file.getFileName()))
+                        .header("Content-Type", file.getContentType())
+                        .header("Cache-Control", downloadCacheControl)
+                        .header("Accept-Ranges", "bytes")
+                        .tag(etag)
+                        .lastModified(lastModified);
+                if (file.getContentLength() >= 0) {
+                    builder.header("Content-Length", file.getContentLength());
+                }
+                return builder.build();
             } else {
                 return Response.status(Response.Status.NOT_FOUND)
                         .header("Content-Type", "application/json")
@@ -244,10 +442,111 @@ public class FileResource {
         }
     }
 
+    /**
+     * A single range is answered with a plain 206 whose body is fetched with
+     * one ranged GET.
+     */
+    private Response.ResponseBuilder singleRange(String fileId, ByteRange range, long size) {
+        ApiResponse<FileInfo> result = fileService.downloadRange(fileId, range);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException(result.getMessage());
+        }
+
+        FileInfo file = result.getData();
+        return Response.status(Response.Status.PARTIAL_CONTENT)
+                .entity(streamBody(file))
+                .header("Content-Disposition", ContentDisposition.attachment(file.getFileName()))
+                .header("Content-Type", file.getContentType())
+                .header("Content-Range", range.toContentRange(size))
+                .header("Content-Length", range.length());
+    }
+
+    /**
+     * Several ranges are answered with multipart/byteranges. Each part is
+     * fetched with its own ranged GET while the body is written, so only one
+     * S3 connection is open at a time.
+     */
+    private Response.ResponseBuilder multipleRanges(String fileId, List<ByteRange> ranges, long size,
+            String contentType) {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        StreamingOutput body = output -> {
+            for (ByteRange range : ranges) {
+                ApiResponse<FileInfo> result = fileService.downloadRange(fileId, range);
+                if (!result.isSuccess()) {
+                    throw new IOException("Failed to read range " + range + ": " + result.getMessage());
+                }
+                output.write(("\r\n--" + boundary + "\r\n"
+                        + "Content-Type: " + contentType + "\r\n"
+                        + "Content-Range: " + range.toContentRange(size) + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                copyBody(result.getData(), output);
+            }
+            output.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+        };
+
+        return Response.status(Response.Status.PARTIAL_CONTENT)
+                .entity(body)
+                .header("Content-Type", "multipart/byteranges; boundary=" + boundary);
+    }
+
+    /**
+     * If-Range makes the Range header conditional: it only applies when the
+     * client's copy is still current. Entity tags must match strongly.
+     */
+    private boolean ifRangeMatches(String ifRange, EntityTag etag, Date lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("W/")) {
+            return false;
+        }
+        if (value.startsWith("\"")) {
+            return value.equals("\"" + etag.getValue() + "\"");
+        }
+        try {
+            return Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(value)).equals(lastModified.toInstant());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * S3 ETags arrive quoted; EntityTag adds the quotes itself.
+     */
+    private EntityTag entityTag(String s3Etag) {
+        if (s3Etag.length() >= 2 && s3Etag.startsWith("\"") && s3Etag.endsWith("\"")) {
+            return new EntityTag(s3Etag.substring(1, s3Etag.length() - 1));
+        }
+        return new EntityTag(s3Etag);
+    }
+
+    /**
+     * Answers with a 302 to a presigned S3 URL so the file never passes
+     * through this function.
+     */
+    private Response redirectToS3(String fileId) {
+        ApiResponse<String> result = fileService.getDownloadUrl(fileId);
+
+        if (result.isSuccess()) {
+            return Response.status(Response.Status.FOUND)
+                    .location(URI.create(result.getData()))
+                    .header("Cache-Control", "no-store")
+                    .build();
+        } else {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .header("Content-Type", "application/json")
+                    .entity(result)
+                    .build();
+        }
+    }
+
     @DELETE
+    @AdmissionCost(50)
     public Response deleteAllFiles() {
         try {
-            ApiResponse<Void> result = fileService.deleteAllFiles();
+            ApiResponse<DeleteResult> result = fileService.deleteAllFiles();
 
             if (result.isSuccess()) {
                 return Response.ok(result).build();
@@ -264,6 +563,298 @@ public class FileResource {
         }
     }
 
+    @DELETE
+    @Path("/user/{userId}")
+    @AdmissionCost(20)
+    public Response deleteUserFiles(@PathParam("userId") String userId) {
+        try {
+            ApiResponse<DeleteResult> result = fileService.deleteUserFiles(userId);
+
+            if (result.isSuccess()) {
+                return Response.ok(result).build();
+            } else {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(result)
+                        .build();
+            }
+        } catch (Exception e) {
+            logger.error("Error in deleteUserFiles endpoint", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Internal server error"))
+                    .build();
+        }
+    }
+
+    @DELETE
+    @Path("/{fileId}")
+    @AdmissionCost(1)
+    public Response deleteFile(@PathParam("fileId") String fileId) {
+        try {
+            ApiResponse<DeleteResult> result = fileService.deleteFile(fileId);
+
+            if (result.isSuccess()) {
+                return Response.ok(result).build();
+            } else if (result.getData() == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(result)
+                        .build();
+            } else {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(result)
+                        .build();
+            }
+        } catch (Exception e) {
+            logger.error("Error in deleteFile endpoint", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Internal server error"))
+                    .build();
+        }
+    }
+
+    /**
+     * Non-blocking download: the body is relayed chunk by chunk from the
+     * async S3 client and sent chunked. Conditional and range requests are
+     * only served by {@link #downloadFileById}.
+     */
+    @GET
+    @Path("/async/{fileId}")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @AdmissionCost(1)
+    public RestMulti<byte[]> downloadFileAsync(@PathParam("fileId") String fileId) {
+        Uni<ApiResponse<StreamedFile>> download = reactiveFileService.isAvailable()
+                ? reactiveFileService.downloadFile(fileId)
+                : Uni.createFrom().item(ApiResponse.error(ASYNC_UNAVAILABLE));
+
+        return RestMulti.fromUniResponse(download,
+                result -> result.isSuccess()
+                        ? result.getData().getBody()
+                        : Multi.createFrom().item(toJson(result)),
+                result -> {
+                    if (!result.isSuccess()) {
+                        return Map.of("Content-Type", List.of(MediaType.APPLICATION_JSON));
+                    }
+                    StreamedFile file = result.getData();
+                    Map<String, List<String>> headers = new HashMap<>();
+                    headers.put("Content-Disposition", List.of(ContentDisposition.attachment(file.getFileName())));
+                    headers.put("Content-Type", List.of(file.getContentType()));
+                    headers.put("Cache-Control", List.of(downloadCacheControl));
+                    headers.put("ETag", List.of(ETAG_HEADER.toString(entityTag(file.getEtag()))));
+                    headers.put("Last-Modified", List.of(DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                            file.getLastModified().truncatedTo(ChronoUnit.SECONDS).atOffset(ZoneOffset.UTC))));
+                    return headers;
+                },
+                result -> result.isSuccess() ? 200
+                        : reactiveFileService.isAvailable() ? 404 : 501);
+    }
+
+    /**
+     * Non-blocking binary upload. The HTTP layer reads the body into memory
+     * without blocking before this method runs, so it suits small files;
+     * large files should use {@link #uploadBinaryFile}, which streams.
+     */
+    @PUT
+    @Path("/async/{userId}/{fileName}")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    @BufferedBody
+    @AdmissionCost(2)
+    public Uni<Response> uploadBinaryFileAsync(
+            @PathParam("userId") String userId,
+            @PathParam("fileName") String fileName,
+            @HeaderParam("X-File-Content-Type") String fileContentType,
+            byte[] body) {
+        if (!reactiveFileService.isAvailable()) {
+            return Uni.createFrom().item(asyncUnavailable());
+        }
+
+        String contentType = fileContentType != null ? fileContentType : getContentTypeFromFileName(fileName);
+        return reactiveFileService.uploadFile(userId, fileName, contentType, body)
+                .map(result -> result.isSuccess()
+                        ? Response.ok(result).build()
+                        : Response.status(Response.Status.BAD_REQUEST).entity(result).build())
+                .onFailure().recoverWithItem(e -> Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(ApiResponse.error("Failed to upload file: " + e.getMessage()))
+                        .build());
+    }
+
+    @GET
+    @Path("/async/user/{userId}")
+    @AdmissionCost(2)
+    public Uni<Response> getUserFilesAsync(
+            @PathParam("userId") String userId,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("cursor") String cursor) {
+        if (!reactiveFileService.isAvailable()) {
+            return Uni.createFrom().item(asyncUnavailable());
+        }
+
+        return reactiveFileService.getUserFiles(userId, limit, cursor)
+                .map(result -> {
+                    java.util.Map<String, Object> response = new java.util.HashMap<>();
+                    response.put("success", result.isSuccess());
+                    response.put("message", result.getMessage());
+                    response.put("data", result.getData());
+
+                    return result.isSuccess()
+                            ? Response.ok(response).build()
+                            : Response.status(Response.Status.NOT_FOUND).entity(response).build();
+                });
+    }
+
+    /**
+     * Streams every file of the user as a plain JSON array, fetching listing
+     * pages as the client reads. A failure part way through ends the array
+     * early instead of being reported in the body.
+     */
+    @GET
+    @Path("/async/user/{userId}/stream")
+    @AdmissionCost(2)
+    public Multi<FileResponse> streamUserFilesAsync(@PathParam("userId") String userId) {
+        if (!reactiveFileService.isAvailable()) {
+            return Multi.createFrom().failure(new WebApplicationException(asyncUnavailable()));
+        }
+        return reactiveFileService.streamUserFiles(userId);
+    }
+
+    @DELETE
+    @Path("/async/{fileId}")
+    @AdmissionCost(1)
+    public Uni<Response> deleteFileAsync(@PathParam("fileId") String fileId) {
+        if (!reactiveFileService.isAvailable()) {
+            return Uni.createFrom().item(asyncUnavailable());
+        }
+
+        return reactiveFileService.deleteFile(fileId)
+                .map(result -> {
+                    if (result.isSuccess()) {
+                        return Response.ok(result).build();
+                    } else if (result.getData() == null) {
+                        return Response.status(Response.Status.NOT_FOUND).entity(result).build();
+                    } else {
+                        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(result).build();
+                    }
+                });
+    }
+
+    private Response asyncUnavailable() {
+        return Response.status(Response.Status.NOT_IMPLEMENTED)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(ApiResponse.error(ASYNC_UNAVAILABLE))
+                .build();
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a listing as it is produced, one page of keys at a time. The data
+     * array is written before the status fields so that a failure halfway
+     * through can still be reported as {@code "success": false}.
+     */
+    private StreamingOutput streamFileList(String userId, FileListWriter items) {
+        return output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.writeStartObject();
+                if (userId != null) {
+                    generator.writeObjectFieldStart("data");
+                    generator.writeStringField("userId", userId);
+                    generator.writeArrayFieldStart("files");
+                } else {
+                    generator.writeArrayFieldStart("data");
+                }
+
+                String error = null;
+                String nextCursor = null;
+                try {
+                    nextCursor = items.write(generator);
+                } catch (Exception e) {
+                    logger.error("Error while streaming file list", e);
+                    error = "Failed to fetch files: " + e.getMessage();
+                }
+
+                generator.writeEndArray();
+                if (userId != null) {
+                    if (nextCursor != null) {
+                        generator.writeStringField("nextCursor", nextCursor);
+                    }
+                    generator.writeEndObject();
+                }
+                generator.writeBooleanField("success", error == null);
+                if (error != null) {
+                    generator.writeStringField("message", error);
+                }
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    private void writeItem(JsonGenerator generator, Object item) {
+        try {
+            generator.writeObject(item);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the items and returns the cursor to continue from, or null
+     * when the list is complete.
+     */
+    @FunctionalInterface
+    private interface FileListWriter {
+        String write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * Copies the S3 body to the response through a fixed-size buffer so heap use
+     * per download does not grow with the object size.
+     */
+    private StreamingOutput streamBody(FileInfo file) {
+        return output -> {
+            copyBody(file, output);
+            output.flush();
+        };
+    }
+
+    /**
+     * Copies a download body and closes it. Files served from the local disk
+     * cache or the filesystem storage backend are copied with
+     * {@link FileChannel#transferTo}. The response is an OutputStream, not a
+     * socket channel, so this still copies through a buffer rather than
+     * using sendfile; it only saves the read loop. A file that ends before
+     * the expected length (truncated underneath us) fails the download.
+     */
+    private void copyBody(FileInfo file, OutputStream output) throws IOException {
+        FileChannel channel = file.getFileChannel();
+        if (channel != null) {
+            try (FileChannel in = channel) {
+                WritableByteChannel target = Channels.newChannel(output);
+                long position = in.position();
+                long end = position + file.getContentLength();
+                while (position < end) {
+                    long sent = in.transferTo(position, end - position, target);
+                    if (sent <= 0) {
+                        throw new EOFException("File ended " + (end - position) + " bytes early");
+                    }
+                    position += sent;
+                }
+            }
+            return;
+        }
+
+        try (InputStream in = file.getInputStream()) {
+            byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+        }
+    }
+
     private String getContentTypeFromFileName(String fileName) {
         if (fileName == null)
             return "application/octet-stream";
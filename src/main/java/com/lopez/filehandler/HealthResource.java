@@ -1,5 +1,10 @@
 package com.lopez.filehandler;
 
+import com.lopez.filehandler.dto.ApiResponse;
+import com.lopez.filehandler.dto.CacheStats;
+import com.lopez.filehandler.service.FileService;
+
+import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
@@ -9,8 +14,20 @@ import jakarta.ws.rs.core.MediaType;
 @Produces(MediaType.APPLICATION_JSON)
 public class HealthResource {
 
+    @Inject
+    FileService fileService;
+
     @GET
     public String health() {
         return "{\"status\":\"UP\",\"service\":\"file-handler\"}";
     }
-}
\ No newline at end of file
+
+    /**
+     * Hit, miss and eviction counters of this instance's download cache.
+     */
+    @GET
+    @Path("/cache")
+    public ApiResponse<CacheStats> cacheStats() {
+        return ApiResponse.success(fileService.getCacheStats());
+    }
+}
@@ -0,0 +1,71 @@
+package com.lopez.filehandler.admission;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A concurrency limit that follows S3 latency, after TCP Vegas. Each S3
+ * call is compared with the fastest recent call of the same operation;
+ * the ratio estimates how much of the limit is spent queueing (for a
+ * pooled connection, or inside S3) rather than working. The limit grows
+ * while that queue is short and shrinks once it is long, by about
+ * log10(limit) per sample. Throttling and connection failures cut it
+ * multiplicatively, at most once per round trip, as in AIMD.
+ *
+ * Baselines are forgotten every {@code probeInterval} samples so that a
+ * lasting change in S3 latency is not mistaken for queueing.
+ */
+class AdaptiveLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int probeInterval;
+
+    private final Map<String, Long> baselines = new HashMap<>();
+    private double limit;
+    private long samples;
+    private long lastDecreaseNanos;
+
+    AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, int probeInterval) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.probeInterval = probeInterval;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.lastDecreaseNanos = Long.MIN_VALUE / 2;
+    }
+
+    synchronized int get() {
+        return (int) limit;
+    }
+
+    /**
+     * Records one S3 call. {@code inFlight} is the cost currently admitted;
+     * the limit only grows while it is at least half used, so an idle
+     * service does not drift to the maximum.
+     */
+    synchronized void onSample(String operation, long latencyNanos, boolean overloaded, int inFlight,
+            long nowNanos) {
+        if (overloaded) {
+            if (nowNanos - lastDecreaseNanos >= latencyNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                lastDecreaseNanos = nowNanos;
+            }
+            return;
+        }
+
+        if (++samples % probeInterval == 0) {
+            baselines.clear();
+        }
+        long baseline = baselines.merge(operation, latencyNanos, Math::min);
+
+        double queue = limit * (1 - (double) baseline / Math.max(1, latencyNanos));
+        double step = Math.max(1, Math.log10(limit));
+        if (queue > 6 * step) {
+            limit = Math.max(minLimit, limit - step);
+        } else if (queue < 3 * step && inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + step);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.lopez.filehandler.admission;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Decides whether a request may start, without ever making it wait. A
+ * request is charged its {@link AdmissionCost} against its user's token
+ * bucket, which caps the rate of work one user can start, against its
+ * client address's bucket, and against a global concurrency limit on the
+ * cost of all running requests, which adapts to S3 latency (see
+ * {@link AdaptiveLimit}). User ids come from the request path and are not
+ * authenticated, so the address bucket is what stops one client from
+ * dodging its limit by sending a new user id each time. A request the
+ * service cannot take now is rejected at once with a retry delay, so
+ * overload turns into 429s instead of queued requests holding memory.
+ *
+ * A request whose cost alone exceeds the limit is still admitted when
+ * nothing else is running, so no endpoint becomes unreachable.
+ */
+@ApplicationScoped
+public class AdmissionController {
+
+    // The SDK creates the metrics interceptor itself, so S3 samples reach the limit statically
+    private static volatile AdmissionController active;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "file-handler.admission.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "file-handler.admission.limit.initial", defaultValue = "64")
+    int initialLimit;
+
+    @ConfigProperty(name = "file-handler.admission.limit.min", defaultValue = "8")
+    int minLimit;
+
+    @ConfigProperty(name = "file-handler.admission.limit.max", defaultValue = "512")
+    int maxLimit;
+
+    @ConfigProperty(name = "file-handler.admission.limit.probe-interval", defaultValue = "1000")
+    int probeInterval;
+
+    @ConfigProperty(name = "file-handler.admission.user.rate", defaultValue = "20")
+    double userRate;
+
+    @ConfigProperty(name = "file-handler.admission.user.burst", defaultValue = "50")
+    double userBurst;
+
+    @ConfigProperty(name = "file-handler.admission.user.max-tracked", defaultValue = "10000")
+    int maxTrackedUsers;
+
+    @ConfigProperty(name = "file-handler.admission.client.rate", defaultValue = "100")
+    double clientRate;
+
+    @ConfigProperty(name = "file-handler.admission.client.burst", defaultValue = "250")
+    double clientBurst;
+
+    @ConfigProperty(name = "file-handler.admission.retry-after", defaultValue = "1s")
+    Duration globalRetryAfter;
+
+    AdaptiveLimit limit;
+
+    TokenBuckets buckets;
+
+    TokenBuckets clientBuckets;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private Counter userRejections;
+
+    private Counter globalRejections;
+
+    @PostConstruct
+    void init() {
+        limit = new AdaptiveLimit(initialLimit, minLimit, maxLimit, probeInterval);
+        buckets = new TokenBuckets(userRate, userBurst, maxTrackedUsers);
+        clientBuckets = new TokenBuckets(clientRate, clientBurst, maxTrackedUsers);
+
+        Gauge.builder("filehandler.admission.limit", limit, AdaptiveLimit::get).register(meterRegistry);
+        Gauge.builder("filehandler.admission.in_flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        userRejections = Counter.builder("filehandler.admission.rejected").tag("reason", "user")
+                .register(meterRegistry);
+        globalRejections = Counter.builder("filehandler.admission.rejected").tag("reason", "global")
+                .register(meterRegistry);
+        active = this;
+    }
+
+    /**
+     * Feeds one S3 call into the global limit. {@code overloaded} marks
+     * throttling and failures to get a response at all.
+     */
+    public static void onS3Call(String operation, long latencyNanos, boolean overloaded) {
+        AdmissionController controller = active;
+        if (controller != null && controller.enabled) {
+            controller.limit.onSample(operation, latencyNanos, overloaded, controller.inFlight.get(),
+                    System.nanoTime());
+        }
+    }
+
+    /**
+     * Admits the request and returns null, in which case {@link #release}
+     * must be called with the same cost when it ends; otherwise returns the
+     * number of seconds the caller should wait before retrying. Both the
+     * user's bucket ({@code userId} may be null) and the client's must have
+     * room.
+     */
+    public Long tryAdmit(String userId, String client, int cost) {
+        if (!enabled) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        long waitNanos = userId != null ? buckets.tryTake(userId, cost, now) : 0;
+        if (waitNanos == 0) {
+            waitNanos = clientBuckets.tryTake(client, cost, now);
+            if (waitNanos > 0 && userId != null) {
+                buckets.refund(userId, cost);
+            }
+        }
+        if (waitNanos > 0) {
+            userRejections.increment();
+            return Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        }
+
+        int current;
+        do {
+            current = inFlight.get();
+            if (current > 0 && current + cost > limit.get()) {
+                if (userId != null) {
+                    buckets.refund(userId, cost);
+                }
+                clientBuckets.refund(client, cost);
+                globalRejections.increment();
+                return Math.max(1, globalRetryAfter.toSeconds());
+            }
+        } while (!inFlight.compareAndSet(current, current + cost));
+        return null;
+    }
+
+    public void release(int cost) {
+        if (enabled) {
+            inFlight.addAndGet(-cost);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.lopez.filehandler.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts an endpoint under admission control and states what one request
+ * costs, in units of one single-file download. The cost is charged against
+ * both the caller's token bucket and the global concurrency limit for as
+ * long as the request runs. Endpoints without it are never rejected.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AdmissionCost {
+
+    int value();
+
+    /**
+     * Cost when the request asks for file bodies with {@code include=content};
+     * 0 means the same as {@link #value()}.
+     */
+    int withContent() default 0;
+}
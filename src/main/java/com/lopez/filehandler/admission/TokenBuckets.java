@@ -0,0 +1,75 @@
+package com.lopez.filehandler.admission;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One token bucket per caller, refilled continuously at a fixed rate up to
+ * a burst capacity. Only the most recently seen callers are tracked; a
+ * caller that was evicted starts again with a full bucket.
+ */
+class TokenBuckets {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Map<String, Bucket> buckets;
+
+    TokenBuckets(double ratePerSecond, double capacity, int maxCallers) {
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.buckets = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxCallers;
+            }
+        });
+    }
+
+    /**
+     * Takes {@code cost} tokens and returns 0, or returns how many
+     * nanoseconds the caller has to wait before it would succeed. A cost
+     * above the capacity is granted once the bucket is full and leaves it
+     * in debt, so expensive requests are slowed down rather than refused
+     * forever.
+     */
+    long tryTake(String caller, int cost, long nowNanos) {
+        Bucket bucket = buckets.computeIfAbsent(caller, key -> new Bucket(capacity, nowNanos));
+        synchronized (bucket) {
+            bucket.refill(nowNanos);
+            double needed = Math.min(cost, capacity);
+            if (bucket.tokens >= needed) {
+                bucket.tokens -= cost;
+                return 0;
+            }
+            return (long) Math.ceil((needed - bucket.tokens) / tokensPerNano);
+        }
+    }
+
+    /**
+     * Gives back tokens taken for a request that was then not run.
+     */
+    void refund(String caller, int cost) {
+        Bucket bucket = buckets.get(caller);
+        if (bucket != null) {
+            synchronized (bucket) {
+                bucket.tokens = Math.min(capacity, bucket.tokens + cost);
+            }
+        }
+    }
+
+    private class Bucket {
+        double tokens;
+        long updatedNanos;
+
+        Bucket(double tokens, long nowNanos) {
+            this.tokens = tokens;
+            this.updatedNanos = nowNanos;
+        }
+
+        void refill(long nowNanos) {
+            tokens = Math.min(capacity, tokens + (nowNanos - updatedNanos) * tokensPerNano);
+            updatedNanos = nowNanos;
+        }
+    }
+}
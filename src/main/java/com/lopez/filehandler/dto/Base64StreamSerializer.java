@@ -0,0 +1,40 @@
+package com.lopez.filehandler.dto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Writes an InputStream as a base64 JSON string, encoding chunk by chunk from
+ * the stream into the generator's buffer. The stream is closed afterwards.
+ *
+ * Encode time is recorded in {@code filehandler.base64} with the
+ * global registry, since Jackson creates the serializer. The stream is read
+ * while encoding, so the time includes waiting for the S3 body.
+ */
+@RegisterForReflection
+public class Base64StreamSerializer extends StdSerializer<InputStream> {
+
+    private static final long serialVersionUID = 1L;
+
+    public Base64StreamSerializer() {
+        super(InputStream.class);
+    }
+
+    @Override
+    public void serialize(InputStream value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        Timer.Sample sample = Timer.start();
+        int bytes;
+        try (InputStream in = value) {
+            bytes = gen.writeBinary(in, -1);
+        }
+        sample.stop(Metrics.timer("filehandler.base64", "direction", "encode"));
+        Metrics.summary("filehandler.base64.bytes", "direction", "encode").record(bytes);
+    }
+}
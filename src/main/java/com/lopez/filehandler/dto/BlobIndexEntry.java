@@ -0,0 +1,32 @@
+package com.lopez.filehandler.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
+public class BlobIndexEntry {
+    private String hash;
+    private String blobKey;
+    private long size;
+    private String etag;
+
+    public BlobIndexEntry() {}
+
+    public BlobIndexEntry(String hash, String blobKey, long size, String etag) {
+        this.hash = hash;
+        this.blobKey = blobKey;
+        this.size = size;
+        this.etag = etag;
+    }
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public String getBlobKey() { return blobKey; }
+    public void setBlobKey(String blobKey) { this.blobKey = blobKey; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+}
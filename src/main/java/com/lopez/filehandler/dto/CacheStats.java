@@ -0,0 +1,53 @@
+package com.lopez.filehandler.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
+public class CacheStats {
+    private long heapHits;
+    private long diskHits;
+    private long misses;
+    private long evictions;
+    private int heapEntries;
+    private long heapBytes;
+    private int diskEntries;
+    private long diskBytes;
+
+    public CacheStats() {}
+
+    public CacheStats(long heapHits, long diskHits, long misses, long evictions,
+            int heapEntries, long heapBytes, int diskEntries, long diskBytes) {
+        this.heapHits = heapHits;
+        this.diskHits = diskHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.heapEntries = heapEntries;
+        this.heapBytes = heapBytes;
+        this.diskEntries = diskEntries;
+        this.diskBytes = diskBytes;
+    }
+
+    public long getHeapHits() { return heapHits; }
+    public void setHeapHits(long heapHits) { this.heapHits = heapHits; }
+
+    public long getDiskHits() { return diskHits; }
+    public void setDiskHits(long diskHits) { this.diskHits = diskHits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    public int getHeapEntries() { return heapEntries; }
+    public void setHeapEntries(int heapEntries) { this.heapEntries = heapEntries; }
+
+    public long getHeapBytes() { return heapBytes; }
+    public void setHeapBytes(long heapBytes) { this.heapBytes = heapBytes; }
+
+    public int getDiskEntries() { return diskEntries; }
+    public void setDiskEntries(int diskEntries) { this.diskEntries = diskEntries; }
+
+    public long getDiskBytes() { return diskBytes; }
+    public void setDiskBytes(long diskBytes) { this.diskBytes = diskBytes; }
+}
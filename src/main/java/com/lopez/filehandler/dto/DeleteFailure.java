@@ -0,0 +1,27 @@
+package com.lopez.filehandler.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
+public class DeleteFailure {
+    private String key;
+    private String code;
+    private String message;
+
+    public DeleteFailure() {}
+
+    public DeleteFailure(String key, String code, String message) {
+        this.key = key;
+        this.code = code;
+        this.message = message;
+    }
+
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
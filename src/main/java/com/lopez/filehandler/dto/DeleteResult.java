@@ -0,0 +1,25 @@
+package com.lopez.filehandler.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
+public class DeleteResult {
+    private long deletedCount;
+    private List<DeleteFailure> failures = new ArrayList<>();
+
+    public DeleteResult() {}
+
+    public DeleteResult(long deletedCount, List<DeleteFailure> failures) {
+        this.deletedCount = deletedCount;
+        this.failures = failures;
+    }
+
+    public long getDeletedCount() { return deletedCount; }
+    public void setDeletedCount(long deletedCount) { this.deletedCount = deletedCount; }
+
+    public List<DeleteFailure> getFailures() { return failures; }
+    public void setFailures(List<DeleteFailure> failures) { this.failures = failures; }
+}
@@ -1,12 +1,16 @@
 package com.lopez.filehandler.dto;
 
 import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @RegisterForReflection
 public class FileCollectionResponse {
     private String userId;
     private List<FileResponse> files;
+    private String nextCursor;
 
     public FileCollectionResponse() {}
 
@@ -15,9 +19,18 @@ public class FileCollectionResponse {
         this.files = files;
     }
 
+    public FileCollectionResponse(String userId, List<FileResponse> files, String nextCursor) {
+        this.userId = userId;
+        this.files = files;
+        this.nextCursor = nextCursor;
+    }
+
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
 
     public List<FileResponse> getFiles() { return files; }
     public void setFiles(List<FileResponse> files) { this.files = files; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
 }
\ No newline at end of file
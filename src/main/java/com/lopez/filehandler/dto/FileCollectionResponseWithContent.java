@@ -1,12 +1,21 @@
 package com.lopez.filehandler.dto;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @RegisterForReflection
-public class FileCollectionResponseWithContent {
+public class FileCollectionResponseWithContent implements Closeable {
     private String userId;
     private List<FileResponseWithContent> files;
+    private String nextCursor;
+    @JsonIgnore
+    private Closeable bodies; // file bodies opened ahead of serialization; closed with the response
 
     public FileCollectionResponseWithContent() {}
 
@@ -15,9 +24,32 @@ public class FileCollectionResponseWithContent {
         this.files = files;
     }
 
+    public FileCollectionResponseWithContent(String userId, List<FileResponseWithContent> files, String nextCursor) {
+        this.userId = userId;
+        this.files = files;
+        this.nextCursor = nextCursor;
+    }
+
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
 
     public List<FileResponseWithContent> getFiles() { return files; }
     public void setFiles(List<FileResponseWithContent> files) { this.files = files; }
-}
\ No newline at end of file
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    @JsonIgnore
+    public void setBodies(Closeable bodies) { this.bodies = bodies; }
+
+    /**
+     * Releases file bodies that were opened but not written, for example
+     * when the client went away part way through.
+     */
+    @Override
+    public void close() throws IOException {
+        if (bodies != null) {
+            bodies.close();
+        }
+    }
+}
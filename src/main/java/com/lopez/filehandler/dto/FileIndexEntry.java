@@ -0,0 +1,63 @@
+package com.lopez.filehandler.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@RegisterForReflection
+public class FileIndexEntry {
+    private String fileId;
+    private String s3Key;
+    private String fileName;
+    private String contentType;
+    private long size;
+    private String uploadDate;
+    private String etag;
+    private String lastModified;
+    private String blobKey; // set when s3Key is a reference to a deduplicated blob
+    private String contentHash;
+
+    public FileIndexEntry() {}
+
+    public FileIndexEntry(String fileId, String s3Key, String fileName, String contentType, long size,
+            String uploadDate, String etag, String lastModified) {
+        this.fileId = fileId;
+        this.s3Key = s3Key;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.uploadDate = uploadDate;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public String getFileId() { return fileId; }
+    public void setFileId(String fileId) { this.fileId = fileId; }
+
+    public String getS3Key() { return s3Key; }
+    public void setS3Key(String s3Key) { this.s3Key = s3Key; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public String getUploadDate() { return uploadDate; }
+    public void setUploadDate(String uploadDate) { this.uploadDate = uploadDate; }
+
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+
+    public String getLastModified() { return lastModified; }
+    public void setLastModified(String lastModified) { this.lastModified = lastModified; }
+
+    public String getBlobKey() { return blobKey; }
+    public void setBlobKey(String blobKey) { this.blobKey = blobKey; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+}
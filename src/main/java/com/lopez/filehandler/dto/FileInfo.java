@@ -1,11 +1,24 @@
 package com.lopez.filehandler.dto;
 
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 public class FileInfo {
   private String fileName;
   private String contentType;
+  private long contentLength = -1;
   private InputStream inputStream;
+  private FileChannel fileChannel; // local file body: contentLength bytes from the channel's position, copied with transferTo
+
+  public FileInfo() {
+  }
+
+  public FileInfo(String fileName, String contentType, long contentLength, InputStream inputStream) {
+    this.fileName = fileName;
+    this.contentType = contentType;
+    this.contentLength = contentLength;
+    this.inputStream = inputStream;
+  }
 
   public String getFileName() {
     return fileName;
@@ -23,6 +36,14 @@ public class FileInfo {
     this.contentType = contentType;
   }
 
+  public long getContentLength() {
+    return contentLength;
+  }
+
+  public void setContentLength(long contentLength) {
+    this.contentLength = contentLength;
+  }
+
   public InputStream getInputStream() {
     return inputStream;
   }
@@ -30,4 +51,12 @@ public class FileInfo {
   public void setInputStream(InputStream inputStream) {
     this.inputStream = inputStream;
   }
-}
\ No newline at end of file
+
+  public FileChannel getFileChannel() {
+    return fileChannel;
+  }
+
+  public void setFileChannel(FileChannel fileChannel) {
+    this.fileChannel = fileChannel;
+  }
+}
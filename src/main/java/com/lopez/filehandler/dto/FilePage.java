@@ -0,0 +1,26 @@
+package com.lopez.filehandler.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@RegisterForReflection
+public class FilePage {
+    private List<FileResponse> files;
+    private String nextCursor;
+
+    public FilePage() {}
+
+    public FilePage(List<FileResponse> files, String nextCursor) {
+        this.files = files;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<FileResponse> getFiles() { return files; }
+    public void setFiles(List<FileResponse> files) { this.files = files; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
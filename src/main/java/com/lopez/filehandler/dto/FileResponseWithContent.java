@@ -1,8 +1,13 @@
 package com.lopez.filehandler.dto;
 
+import java.io.InputStream;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @RegisterForReflection
 public class FileResponseWithContent {
     private String fileId;
@@ -11,11 +16,12 @@ public class FileResponseWithContent {
     private String s3Key;
     private long size;
     private String uploadDate;
-    private String fileContent; // base64 encoded
+    private InputStream fileContent; // written as base64 while serializing
+    private String downloadUrl; // set instead of fileContent when the file does not fit inline
 
     public FileResponseWithContent() {}
 
-    public FileResponseWithContent(String fileId, String fileName, String contentType, String s3Key, long size, String uploadDate, String fileContent) {
+    public FileResponseWithContent(String fileId, String fileName, String contentType, String s3Key, long size, String uploadDate, InputStream fileContent) {
         this.fileId = fileId;
         this.fileName = fileName;
         this.contentType = contentType;
@@ -50,6 +56,11 @@ public class FileResponseWithContent {
     public void setUploadDate(String uploadDate) { this.uploadDate = uploadDate; }
 
     @JsonProperty
-    public String getFileContent() { return fileContent; }
-    public void setFileContent(String fileContent) { this.fileContent = fileContent; }
+    @JsonSerialize(using = Base64StreamSerializer.class)
+    public InputStream getFileContent() { return fileContent; }
+    public void setFileContent(InputStream fileContent) { this.fileContent = fileContent; }
+
+    @JsonProperty
+    public String getDownloadUrl() { return downloadUrl; }
+    public void setDownloadUrl(String downloadUrl) { this.downloadUrl = downloadUrl; }
 }
\ No newline at end of file
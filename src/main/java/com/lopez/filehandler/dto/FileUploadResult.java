@@ -0,0 +1,34 @@
+package com.lopez.filehandler.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@RegisterForReflection
+public class FileUploadResult {
+    private String fileName;
+    private boolean success;
+    private String message;
+    private FileResponse file;
+
+    public FileUploadResult() {}
+
+    public FileUploadResult(String fileName, boolean success, String message, FileResponse file) {
+        this.fileName = fileName;
+        this.success = success;
+        this.message = message;
+        this.file = file;
+    }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public FileResponse getFile() { return file; }
+    public void setFile(FileResponse file) { this.file = file; }
+}
@@ -0,0 +1,42 @@
+package com.lopez.filehandler.dto;
+
+import java.time.Instant;
+
+import io.smallrye.mutiny.Multi;
+
+/**
+ * A download whose body arrives as chunks from a non-blocking S3 read.
+ * The body can be subscribed to only once.
+ */
+public class StreamedFile {
+    private String fileName;
+    private String contentType;
+    private String etag;
+    private Instant lastModified;
+    private Multi<byte[]> body;
+
+    public StreamedFile() {}
+
+    public StreamedFile(String fileName, String contentType, String etag, Instant lastModified, Multi<byte[]> body) {
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.body = body;
+    }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+
+    public Instant getLastModified() { return lastModified; }
+    public void setLastModified(Instant lastModified) { this.lastModified = lastModified; }
+
+    public Multi<byte[]> getBody() { return body; }
+    public void setBody(Multi<byte[]> body) { this.body = body; }
+}
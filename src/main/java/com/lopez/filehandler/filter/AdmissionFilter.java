@@ -0,0 +1,66 @@
+package com.lopez.filehandler.filter;
+
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import com.lopez.filehandler.admission.AdmissionController;
+import com.lopez.filehandler.admission.AdmissionCost;
+import com.lopez.filehandler.dto.ApiResponse;
+
+import io.vertx.ext.web.RoutingContext;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Runs admission control for endpoints annotated with {@link AdmissionCost}.
+ * The filter runs on the event loop before the body is read or a worker
+ * thread is taken, so a rejection costs almost nothing. An admitted
+ * request holds its cost until the response has been fully written,
+ * including streamed bodies.
+ *
+ * A request is charged to the {@code userId} path parameter, when the
+ * endpoint has one, and always to the client address. The user id is
+ * chosen by the client, so the address bucket keeps a caller from escaping
+ * its limit by rotating ids. Forwarding headers are not read here, since
+ * any client can set them and get a fresh bucket per value; behind a proxy,
+ * Quarkus resolves the remote address from them when
+ * {@code quarkus.http.proxy.*} trusts that proxy.
+ */
+public class AdmissionFilter {
+
+    @Inject
+    AdmissionController admission;
+
+    @ServerRequestFilter(nonBlocking = true)
+    public Response admit(ContainerRequestContext request, ResourceInfo resource, RoutingContext routing) {
+        AdmissionCost annotation = resource.getResourceMethod().getAnnotation(AdmissionCost.class);
+        if (annotation == null) {
+            return null;
+        }
+
+        int cost = annotation.withContent() > 0
+                && "content".equals(request.getUriInfo().getQueryParameters().getFirst("include"))
+                ? annotation.withContent()
+                : annotation.value();
+        Long retryAfter = admission.tryAdmit(
+                request.getUriInfo().getPathParameters().getFirst("userId"), client(routing), cost);
+        if (retryAfter != null) {
+            return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header("Retry-After", retryAfter)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(ApiResponse.error("Too many requests, retry later"))
+                    .build();
+        }
+
+        routing.addEndHandler(ended -> admission.release(cost));
+        return null;
+    }
+
+    private String client(RoutingContext routing) {
+        return routing.request().remoteAddress() != null
+                ? routing.request().remoteAddress().hostAddress()
+                : "unknown";
+    }
+}
@@ -0,0 +1,55 @@
+package com.lopez.filehandler.filter;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import com.lopez.filehandler.dto.ApiResponse;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Rejects oversized bodies for {@link BufferedBody} endpoints before they
+ * are read. The check uses the declared Content-Length, so these endpoints
+ * require one; a chunked body of unknown size could otherwise fill the
+ * heap up to the global limit before anything sees it.
+ */
+public class BodySizeFilter {
+
+    @ConfigProperty(name = "file-handler.upload.max-buffered-bytes", defaultValue = "32M")
+    MemorySize maxBufferedBytes;
+
+    @ServerRequestFilter(nonBlocking = true)
+    public Response limit(ContainerRequestContext request, ResourceInfo resource) {
+        if (!resource.getResourceMethod().isAnnotationPresent(BufferedBody.class)) {
+            return null;
+        }
+
+        String header = request.getHeaderString(HttpHeaders.CONTENT_LENGTH);
+        if (header == null) {
+            return reject(Response.Status.LENGTH_REQUIRED, "Content-Length is required");
+        }
+        long length;
+        try {
+            length = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return reject(Response.Status.BAD_REQUEST, "Invalid Content-Length");
+        }
+        if (length > maxBufferedBytes.asLongValue()) {
+            return reject(Response.Status.REQUEST_ENTITY_TOO_LARGE,
+                    "Request body exceeds " + maxBufferedBytes.asLongValue() + " bytes");
+        }
+        return null;
+    }
+
+    private Response reject(Response.Status status, String message) {
+        return Response.status(status)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(ApiResponse.badRequest(message))
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.lopez.filehandler.filter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint whose body is read whole into memory before the method
+ * runs. {@link BodySizeFilter} holds such bodies to
+ * {@code file-handler.upload.max-buffered-bytes} instead of the global
+ * HTTP limit, which is sized for the streaming upload routes.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface BufferedBody {
+}
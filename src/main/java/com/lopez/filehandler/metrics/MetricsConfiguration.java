@@ -0,0 +1,33 @@
+package com.lopez.filehandler.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+/**
+ * Publishes histogram buckets for the latency and size meters of this
+ * service, so Prometheus can compute percentiles across instances.
+ */
+@Singleton
+public class MetricsConfiguration {
+
+    @Produces
+    @Singleton
+    public MeterFilter histograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String name = id.getName();
+                if (name.startsWith("s3.") || name.startsWith("filehandler.") || name.equals("http.server.requests")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.lopez.filehandler.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import com.lopez.filehandler.admission.AdmissionController;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+/**
+ * Times every call made through the Quarkus-managed S3 client, tagged by
+ * operation (ListObjectsV2, GetObject, PutObject, DeleteObjects, ...) and
+ * outcome, and counts request and response body bytes per operation.
+ *
+ * The SDK instantiates interceptors itself (see {@code quarkus.s3.interceptors}),
+ * so meters go to Micrometer's global registry, which Quarkus backs with the
+ * application registry. For GetObject the timer stops when the response
+ * headers arrive; streaming the body is not included. Each sample also
+ * drives the adaptive admission limit.
+ */
+@RegisterForReflection
+public class S3MetricsInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START = new ExecutionAttribute<>("FileHandlerMetricsStart");
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes attributes) {
+        attributes.putAttribute(START, System.nanoTime());
+    }
+
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes attributes) {
+        context.requestBody()
+                .flatMap(body -> body.optionalContentLength())
+                .filter(length -> length > 0)
+                .ifPresent(length -> Metrics.counter("s3.bytes.sent", "operation", operation(attributes))
+                        .increment(length));
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes attributes) {
+        record(attributes, "SUCCESS", String.valueOf(context.httpResponse().statusCode()), false);
+        context.httpResponse().firstMatchingHeader("Content-Length")
+                .map(Long::parseLong)
+                .filter(length -> length > 0)
+                .ifPresent(length -> Metrics.counter("s3.bytes.received", "operation", operation(attributes))
+                        .increment(length));
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes attributes) {
+        Throwable failure = context.exception();
+        String status = failure instanceof SdkServiceException
+                ? String.valueOf(((SdkServiceException) failure).statusCode())
+                : "NONE";
+        // Throttling, and failing to get any response (timeouts, no pooled connection), signal overload
+        boolean overloaded = !(failure instanceof SdkServiceException)
+                || ((SdkServiceException) failure).isThrottlingException()
+                || ((SdkServiceException) failure).statusCode() == 503;
+        record(attributes, "ERROR", status, overloaded);
+    }
+
+    private static void record(ExecutionAttributes attributes, String outcome, String status, boolean overloaded) {
+        Long start = attributes.getAttribute(START);
+        if (start == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        Metrics.timer("s3.requests", Tags.of("operation", operation(attributes), "outcome", outcome, "status", status))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        AdmissionController.onS3Call(operation(attributes), elapsed, overloaded);
+    }
+
+    private static String operation(ExecutionAttributes attributes) {
+        String operation = attributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        return operation != null ? operation : "unknown";
+    }
+}
@@ -0,0 +1,196 @@
+package com.lopez.filehandler.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lopez.filehandler.dto.BlobIndexEntry;
+
+/**
+ * Content-addressed storage for deduplicated uploads.
+ *
+ * File bytes live once under {@code blobs/data/{blobId}}. A small JSON entry
+ * under {@code blobs/sha256/{hash}.json} maps the SHA-256 of the content to
+ * its blob, and every file using a blob holds a zero-byte reference marker
+ * under {@code blobs/refs/{blobId}/{userId}/{fileId}}. A blob is deleted
+ * when its last marker goes away.
+ *
+ * Taking a reference writes the marker first and then checks that the hash
+ * entry still points to the blob. Releasing the last reference deletes the
+ * hash entry first and then checks the markers again before deleting the
+ * bytes. Both storage backends are strongly consistent, so whichever side
+ * runs second sees the other's write and a blob is never deleted under a
+ * live reference.
+ */
+class BlobStore {
+
+    static final String BLOB_PREFIX = "blobs/";
+
+    private static final String DATA_PREFIX = BLOB_PREFIX + "data/";
+    private static final String HASH_PREFIX = BLOB_PREFIX + "sha256/";
+    private static final String REFS_PREFIX = BLOB_PREFIX + "refs/";
+
+    private static final Logger logger = Logger.getLogger(BlobStore.class);
+
+    private final StorageBackend storage;
+    private final ObjectMapper objectMapper;
+
+    BlobStore(StorageBackend storage, ObjectMapper objectMapper) {
+        this.storage = storage;
+        this.objectMapper = objectMapper;
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String hex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+
+    /**
+     * A fresh key to upload new content to before its hash is known.
+     */
+    String newBlobKey() {
+        return DATA_PREFIX + UUID.randomUUID();
+    }
+
+    /**
+     * Takes a reference on the blob already stored for this hash, or returns
+     * null if the content is not stored yet.
+     */
+    BlobIndexEntry acquire(String hash, String userId, String fileId) throws Exception {
+        BlobIndexEntry blob = readHashEntry(hash);
+        if (blob == null) {
+            return null;
+        }
+
+        String marker = refKey(blob.getBlobKey(), userId, fileId);
+        putMarker(marker);
+
+        // The last reference may have been released between the two reads
+        BlobIndexEntry current = readHashEntry(hash);
+        if (current != null && current.getBlobKey().equals(blob.getBlobKey())) {
+            return blob;
+        }
+        deleteQuietly(marker);
+        return null;
+    }
+
+    /**
+     * Like {@link #acquire}, but only for content the user already stores.
+     * A client-supplied hash proves nothing about possession of the bytes,
+     * so it must never grant access to another user's blob.
+     */
+    BlobIndexEntry acquireOwned(String hash, String userId, String fileId) throws Exception {
+        BlobIndexEntry blob = readHashEntry(hash);
+        if (blob == null || !hasRefs(REFS_PREFIX + blobId(blob.getBlobKey()) + "/" + userId + "/")) {
+            return null;
+        }
+        return acquire(hash, userId, fileId);
+    }
+
+    /**
+     * Registers freshly uploaded content under its hash. If the same content
+     * was stored in the meantime, the upload is deleted and a reference on
+     * the existing blob is returned instead.
+     */
+    BlobIndexEntry commit(String hash, UploadedObject uploaded, String userId, String fileId) throws Exception {
+        BlobIndexEntry existing = acquire(hash, userId, fileId);
+        if (existing != null) {
+            deleteQuietly(uploaded.getKey());
+            logger.infof("Deduplicated %d bytes against %s", uploaded.getSize(), existing.getBlobKey());
+            return existing;
+        }
+
+        BlobIndexEntry created = new BlobIndexEntry(hash, uploaded.getKey(), uploaded.getSize(), uploaded.getEtag());
+        String marker = refKey(created.getBlobKey(), userId, fileId);
+        putMarker(marker);
+
+        if (storage.putIfAbsent(hashKey(hash), objectMapper.writeValueAsBytes(created), "application/json") == null) {
+            // A concurrent upload of the same content published first
+            BlobIndexEntry winner = acquire(hash, userId, fileId);
+            if (winner != null) {
+                deleteQuietly(marker);
+                deleteQuietly(uploaded.getKey());
+                return winner;
+            }
+            // Keep our copy unindexed; it is still reference counted
+        }
+        return created;
+    }
+
+    /**
+     * Drops one reference and deletes the blob if it was the last one.
+     *
+     * @return true if the blob bytes were deleted
+     */
+    boolean release(String blobKey, String hash, String userId, String fileId) throws Exception {
+        storage.delete(refKey(blobKey, userId, fileId));
+
+        String refs = REFS_PREFIX + blobId(blobKey) + "/";
+        if (hasRefs(refs)) {
+            return false;
+        }
+
+        try {
+            BlobIndexEntry indexed = readHashEntry(hash);
+            if (indexed != null && indexed.getBlobKey().equals(blobKey)) {
+                deleteQuietly(hashKey(hash));
+            }
+        } catch (Exception e) {
+            logger.warnf("Could not read hash entry for %s, keeping blob: %s", blobKey, e.getMessage());
+            return false;
+        }
+
+        // An upload may have taken a reference before the hash entry went away
+        if (hasRefs(refs)) {
+            return false;
+        }
+        deleteQuietly(blobKey);
+        logger.infof("Deleted unreferenced blob %s", blobKey);
+        return true;
+    }
+
+    private BlobIndexEntry readHashEntry(String hash) throws Exception {
+        byte[] json = storage.getBytes(hashKey(hash));
+        return json != null ? objectMapper.readValue(json, BlobIndexEntry.class) : null;
+    }
+
+    private boolean hasRefs(String prefix) throws Exception {
+        return !storage.list(prefix, 1, null).getObjects().isEmpty();
+    }
+
+    private void putMarker(String key) throws Exception {
+        storage.put(key, new byte[0], null, Map.of());
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            storage.delete(key);
+        } catch (Exception e) {
+            logger.errorf("Failed to delete %s: %s", key, e.getMessage());
+        }
+    }
+
+    private static String hashKey(String hash) {
+        return HASH_PREFIX + hash + ".json";
+    }
+
+    private static String refKey(String blobKey, String userId, String fileId) {
+        return REFS_PREFIX + blobId(blobKey) + "/" + userId + "/" + fileId;
+    }
+
+    private static String blobId(String blobKey) {
+        return blobKey.substring(DATA_PREFIX.length());
+    }
+}
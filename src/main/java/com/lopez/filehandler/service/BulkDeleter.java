@@ -0,0 +1,135 @@
+package com.lopez.filehandler.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jboss.logging.Logger;
+
+import com.lopez.filehandler.dto.DeleteFailure;
+import com.lopez.filehandler.dto.DeleteResult;
+
+/**
+ * Deletes objects in batches of up to 1000 keys (one DeleteObjects call on
+ * S3), walking every listing page and running several batches at once.
+ * Failures are collected per key instead of aborting the whole operation.
+ */
+class BulkDeleter {
+
+    static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    private static final Logger logger = Logger.getLogger(BulkDeleter.class);
+
+    private final StorageBackend storage;
+    private final ParallelTaskRunner taskRunner;
+    private final int parallelism;
+    private final Duration timeout;
+
+    BulkDeleter(StorageBackend storage, ParallelTaskRunner taskRunner, int parallelism, Duration timeout) {
+        this.storage = storage;
+        this.taskRunner = taskRunner;
+        this.parallelism = parallelism;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Deletes every object under the prefix.
+     *
+     * @param companionKey optional mapping from a listed object to a second key
+     *                     that must be deleted with it (such as its index entry);
+     *                     called before the object is deleted
+     * @param onDeleted    called with each listed key that was deleted
+     */
+    DeleteResult deletePrefix(String prefix, Function<StoredObject, String> companionKey,
+            Consumer<String> onDeleted) throws Exception {
+        int pageSize = companionKey == null ? MAX_KEYS_PER_REQUEST : MAX_KEYS_PER_REQUEST / 2;
+
+        DeleteResult total = new DeleteResult();
+        List<Callable<DeleteResult>> wave = new ArrayList<>(parallelism);
+
+        // Listing is sequential, so pages are deleted in waves of `parallelism`
+        // batches to keep at most that many pages of keys in memory.
+        String cursor = null;
+        do {
+            ObjectPage page = storage.list(prefix, pageSize, cursor);
+            List<StoredObject> objects = page.getObjects();
+            if (!objects.isEmpty()) {
+                wave.add(() -> deleteBatch(objects, companionKey, onDeleted));
+            }
+            if (wave.size() >= parallelism) {
+                merge(total, taskRunner.invokeAll(wave, parallelism, timeout));
+                wave.clear();
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        merge(total, taskRunner.invokeAll(wave, parallelism, timeout));
+        return total;
+    }
+
+    /**
+     * Deletes exactly the given keys.
+     */
+    DeleteResult deleteKeys(List<String> keys) throws Exception {
+        List<Callable<DeleteResult>> batches = new ArrayList<>();
+        for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_REQUEST) {
+            List<StoredObject> batch = new ArrayList<>();
+            for (String key : keys.subList(start, Math.min(keys.size(), start + MAX_KEYS_PER_REQUEST))) {
+                batch.add(new StoredObject(key, 0, null, null));
+            }
+            batches.add(() -> deleteBatch(batch, null, null));
+        }
+
+        DeleteResult total = new DeleteResult();
+        merge(total, taskRunner.invokeAll(batches, parallelism, timeout));
+        return total;
+    }
+
+    private DeleteResult deleteBatch(List<StoredObject> objects, Function<StoredObject, String> companionKey,
+            Consumer<String> onDeleted) {
+        List<String> keys = new ArrayList<>(objects.size() * 2);
+        for (StoredObject object : objects) {
+            keys.add(object.getKey());
+            if (companionKey != null) {
+                keys.add(companionKey.apply(object));
+            }
+        }
+
+        List<DeleteFailure> failures = new ArrayList<>();
+        try {
+            failures.addAll(storage.deleteBatch(keys));
+        } catch (Exception e) {
+            logger.errorf("Batch delete of %d keys failed: %s", keys.size(), e.getMessage());
+            for (String key : keys) {
+                failures.add(new DeleteFailure(key, "RequestFailed", e.getMessage()));
+            }
+        }
+
+        Set<String> failedKeys = new HashSet<>();
+        for (DeleteFailure failure : failures) {
+            failedKeys.add(failure.getKey());
+        }
+
+        long deleted = 0;
+        for (StoredObject object : objects) {
+            if (!failedKeys.contains(object.getKey())) {
+                deleted++;
+                if (onDeleted != null) {
+                    onDeleted.accept(object.getKey());
+                }
+            }
+        }
+        return new DeleteResult(deleted, failures);
+    }
+
+    private void merge(DeleteResult total, List<DeleteResult> results) {
+        for (DeleteResult result : results) {
+            total.setDeletedCount(total.getDeletedCount() + result.getDeletedCount());
+            total.getFailures().addAll(result.getFailures());
+        }
+    }
+}
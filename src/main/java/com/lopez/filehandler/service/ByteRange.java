@@ -0,0 +1,138 @@
+package com.lopez.filehandler.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An inclusive byte range of a file, parsed from an HTTP {@code Range}
+ * header (RFC 9110, section 14.1.2).
+ */
+public class ByteRange {
+
+    /** Requests asking for more ranges than this get the whole file instead. */
+    static final int MAX_RANGES = 16;
+
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses a Range header against a file of the given length.
+     *
+     * Returns null when the header should be ignored and the whole file sent:
+     * no header, a unit other than bytes, a malformed spec, or too many
+     * ranges. Returns an empty list when the header is valid but no range
+     * overlaps the file, which is answered with 416. Otherwise the ranges
+     * come back sorted, clamped to the file, and with overlapping or
+     * adjacent ranges merged.
+     */
+    public static List<ByteRange> parse(String header, long length) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.trim();
+        if (!value.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : value.substring(6).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+
+            long first;
+            long last;
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix < 0) {
+                        return null;
+                    }
+                    if (suffix == 0 || length == 0) {
+                        continue;
+                    }
+                    first = Math.max(0, length - suffix);
+                    last = length - 1;
+                } else {
+                    first = Long.parseLong(spec.substring(0, dash));
+                    last = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+                    if (last < first) {
+                        return null;
+                    }
+                    if (first >= length) {
+                        continue;
+                    }
+                    last = Math.min(last, length - 1);
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (first < 0) {
+                return null;
+            }
+            ranges.add(new ByteRange(first, last));
+        }
+
+        List<ByteRange> merged = merge(ranges);
+        return merged.size() > MAX_RANGES ? null : merged;
+    }
+
+    private static List<ByteRange> merge(List<ByteRange> ranges) {
+        ranges.sort(Comparator.comparingLong(ByteRange::getStart));
+        List<ByteRange> merged = new ArrayList<>(ranges.size());
+        for (ByteRange range : ranges) {
+            ByteRange previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (previous != null && range.start <= previous.end + 1) {
+                merged.set(merged.size() - 1, new ByteRange(previous.start, Math.max(previous.end, range.end)));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    public long getStart() { return start; }
+
+    public long getEnd() { return end; }
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    /** The value of the S3 {@code Range} request parameter. */
+    String toRangeHeader() {
+        return "bytes=" + start + "-" + end;
+    }
+
+    /** The value of the {@code Content-Range} response header. */
+    public String toContentRange(long totalLength) {
+        return "bytes " + start + "-" + end + "/" + totalLength;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ByteRange)) {
+            return false;
+        }
+        ByteRange range = (ByteRange) other;
+        return start == range.start && end == range.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(start) * 31 + Long.hashCode(end);
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+}
@@ -0,0 +1,449 @@
+package com.lopez.filehandler.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.jboss.logging.Logger;
+
+import com.lopez.filehandler.dto.CacheStats;
+import com.lopez.filehandler.dto.FileInfo;
+
+/**
+ * Keeps recently downloaded object bodies on this instance so repeat
+ * downloads are served without touching S3.
+ *
+ * Small objects live in a heap tier and are served straight from the cached
+ * array. Larger ones live in a disk tier under {@code /tmp} and are served
+ * from an open {@link FileChannel}, which the resource copies with
+ * {@link FileChannel#transferTo}. Each tier
+ * is an LRU bounded by total bytes. Entries carry the ETag they were filled
+ * with and only count as a hit when it matches the ETag in the file index.
+ *
+ * Misses are filled as a side effect of the download: the S3 body is teed
+ * into the cache while the client reads it, and the entry is only kept if
+ * the whole object arrived.
+ */
+class ContentCache {
+
+    private static final Logger logger = Logger.getLogger(ContentCache.class);
+
+    private final long heapMaxBytes;
+    private final long heapMaxObjectBytes;
+    private final long diskMaxBytes;
+    private final long diskMaxObjectBytes;
+    private final Path directory;
+
+    private final Map<String, Entry> heap = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Entry> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long heapBytes;
+    private long diskBytes;
+
+    private final LongAdder heapHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ContentCache(long heapMaxBytes, long heapMaxObjectBytes, long diskMaxBytes, long diskMaxObjectBytes,
+            Path directory) {
+        this.heapMaxBytes = heapMaxBytes;
+        this.heapMaxObjectBytes = Math.min(heapMaxObjectBytes, heapMaxBytes);
+        this.diskMaxBytes = diskMaxBytes;
+        this.diskMaxObjectBytes = Math.min(diskMaxObjectBytes, diskMaxBytes);
+        this.directory = directory;
+        if (diskMaxBytes > 0) {
+            prepareDirectory();
+        }
+    }
+
+    /**
+     * Returns the cached body when an entry with the given ETag exists, or
+     * null on a miss. A disk hit carries an open channel the caller must close.
+     */
+    FileInfo lookup(String key, String etag, String fileName, String contentType) {
+        return lookup(key, etag, fileName, contentType, null);
+    }
+
+    /**
+     * Like {@link #lookup(String, String, String, String)}, but returns only
+     * the given range of the cached body. A disk hit's channel is positioned
+     * at the start of the range and the FileInfo length is the range length.
+     */
+    FileInfo lookup(String key, String etag, String fileName, String contentType, ByteRange range) {
+        if (etag == null) {
+            misses.increment();
+            return null;
+        }
+
+        synchronized (this) {
+            Entry entry = heap.get(key);
+            if (entry != null && entry.matches(etag, range)) {
+                heapHits.increment();
+                int offset = range != null ? (int) range.getStart() : 0;
+                int length = range != null ? (int) range.length() : entry.data.length;
+                return new FileInfo(fileName, contentType, length, new ByteArrayInputStream(entry.data, offset, length));
+            }
+
+            entry = disk.get(key);
+            if (entry != null && entry.matches(etag, range)) {
+                try {
+                    // Opened under the lock so eviction cannot delete the file first
+                    FileChannel channel = FileChannel.open(entry.file, StandardOpenOption.READ);
+                    long length = entry.size;
+                    if (range != null) {
+                        channel.position(range.getStart());
+                        length = range.length();
+                    }
+                    diskHits.increment();
+                    FileInfo file = new FileInfo(fileName, contentType, length, Channels.newInputStream(channel));
+                    file.setFileChannel(channel);
+                    return file;
+                } catch (IOException e) {
+                    logger.warnf("Dropping unreadable cache file for %s: %s", key, e.getMessage());
+                    removeDisk(key);
+                }
+            }
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Wraps an S3 body so that reading it to the end also stores it. Bodies
+     * without an ETag or too large for either tier are returned unchanged.
+     */
+    InputStream fill(String key, String etag, long size, InputStream body) {
+        if (etag == null || size < 0) {
+            return body;
+        }
+        if (size <= heapMaxObjectBytes) {
+            return new HeapFill(key, etag, (int) size, body);
+        }
+        if (size <= diskMaxObjectBytes) {
+            try {
+                return new DiskFill(key, etag, size, body);
+            } catch (IOException e) {
+                logger.warnf("Not caching %s: %s", key, e.getMessage());
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Returns the heap-tier body when it holds the given ETag, or null. The
+     * non-blocking downloads use this instead of {@link #lookup}, because a
+     * disk hit would be read on the event loop.
+     */
+    synchronized byte[] lookupHeap(String key, String etag) {
+        Entry entry = etag != null ? heap.get(key) : null;
+        if (entry == null || !entry.matches(etag, null)) {
+            misses.increment();
+            return null;
+        }
+        heapHits.increment();
+        return entry.data;
+    }
+
+    /**
+     * Whether a body of the given size would be kept by the heap tier.
+     */
+    boolean fitsHeap(long size) {
+        return size >= 0 && size <= heapMaxObjectBytes;
+    }
+
+    /**
+     * Stores a body the non-blocking downloads read in full.
+     */
+    void putHeapBody(String key, String etag, byte[] data) {
+        if (etag != null && fitsHeap(data.length)) {
+            putHeap(key, etag, data);
+        }
+    }
+
+    synchronized void evict(String key) {
+        removeHeap(key);
+        removeDisk(key);
+    }
+
+    synchronized void clear() {
+        heap.clear();
+        heapBytes = 0;
+        for (Entry entry : disk.values()) {
+            deleteQuietly(entry.file);
+        }
+        disk.clear();
+        diskBytes = 0;
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(heapHits.sum(), diskHits.sum(), misses.sum(), evictions.sum(),
+                heap.size(), heapBytes, disk.size(), diskBytes);
+    }
+
+    private synchronized void putHeap(String key, String etag, byte[] data) {
+        removeHeap(key);
+        heap.put(key, new Entry(etag, data.length, data, null));
+        heapBytes += data.length;
+
+        Iterator<Map.Entry<String, Entry>> eldest = heap.entrySet().iterator();
+        while (heapBytes > heapMaxBytes && eldest.hasNext()) {
+            heapBytes -= eldest.next().getValue().size;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private synchronized void putDisk(String key, String etag, long size, Path file) {
+        removeDisk(key);
+        disk.put(key, new Entry(etag, size, null, file));
+        diskBytes += size;
+
+        Iterator<Map.Entry<String, Entry>> eldest = disk.entrySet().iterator();
+        while (diskBytes > diskMaxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            diskBytes -= entry.size;
+            deleteQuietly(entry.file);
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void removeHeap(String key) {
+        Entry removed = heap.remove(key);
+        if (removed != null) {
+            heapBytes -= removed.size;
+        }
+    }
+
+    private void removeDisk(String key) {
+        Entry removed = disk.remove(key);
+        if (removed != null) {
+            diskBytes -= removed.size;
+            deleteQuietly(removed.file);
+        }
+    }
+
+    /**
+     * Files left by an earlier process are not in the map, so they are
+     * removed rather than counted against the disk budget.
+     */
+    private void prepareDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> leftovers = Files.list(directory)) {
+                leftovers.forEach(ContentCache::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot use cache directory " + directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warnf("Could not delete cache file %s: %s", file, e.getMessage());
+        }
+    }
+
+    private static class Entry {
+        final String etag;
+        final long size;
+        final byte[] data;
+        final Path file;
+
+        Entry(String etag, long size, byte[] data, Path file) {
+            this.etag = etag;
+            this.size = size;
+            this.data = data;
+            this.file = file;
+        }
+
+        boolean matches(String etag, ByteRange range) {
+            return this.etag.equals(etag) && (range == null || range.getEnd() < size);
+        }
+    }
+
+    /**
+     * Copies every byte read through it into a sink, and hands the sink to
+     * {@link #complete} only if exactly the expected number of bytes was read.
+     */
+    private abstract static class Tee extends FilterInputStream {
+
+        private final long expected;
+        private long copied;
+        private boolean failed;
+        private boolean done;
+
+        Tee(InputStream body, long expected) {
+            super(body);
+            this.expected = expected;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                finish();
+            } else {
+                copy(new byte[] { (byte) b }, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read == -1) {
+                finish();
+            } else if (read > 0) {
+                copy(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            failed = true;
+            return super.skip(n);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!done) {
+                    done = true;
+                    discard();
+                }
+            }
+        }
+
+        private void copy(byte[] buffer, int offset, int length) {
+            if (failed) {
+                return;
+            }
+            if (copied + length > expected) {
+                failed = true;
+                return;
+            }
+            try {
+                write(buffer, offset, length);
+                copied += length;
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+
+        private void finish() {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (!failed && copied == expected) {
+                complete();
+            } else {
+                discard();
+            }
+        }
+
+        abstract void write(byte[] buffer, int offset, int length) throws IOException;
+
+        abstract void complete();
+
+        abstract void discard();
+    }
+
+    private class HeapFill extends Tee {
+
+        private final String key;
+        private final String etag;
+        private final byte[] data;
+        private int position;
+
+        HeapFill(String key, String etag, int size, InputStream body) {
+            super(body, size);
+            this.key = key;
+            this.etag = etag;
+            this.data = new byte[size];
+        }
+
+        @Override
+        void write(byte[] buffer, int offset, int length) {
+            System.arraycopy(buffer, offset, data, position, length);
+            position += length;
+        }
+
+        @Override
+        void complete() {
+            putHeap(key, etag, data);
+        }
+
+        @Override
+        void discard() {
+        }
+    }
+
+    private class DiskFill extends Tee {
+
+        private final String key;
+        private final String etag;
+        private final long size;
+        private final Path partial;
+        private final OutputStream out;
+
+        DiskFill(String key, String etag, long size, InputStream body) throws IOException {
+            super(body, size);
+            this.key = key;
+            this.etag = etag;
+            this.size = size;
+            this.partial = directory.resolve(UUID.randomUUID() + ".part");
+            this.out = Files.newOutputStream(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+        }
+
+        @Override
+        void complete() {
+            try {
+                out.close();
+                Path file = partial.resolveSibling(partial.getFileName().toString().replace(".part", ".bin"));
+                Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+                putDisk(key, etag, size, file);
+            } catch (IOException e) {
+                logger.warnf("Could not store %s in the disk cache: %s", key, e.getMessage());
+                deleteQuietly(partial);
+            }
+        }
+
+        @Override
+        void discard() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // the partial file is deleted either way
+            }
+            deleteQuietly(partial);
+        }
+    }
+}
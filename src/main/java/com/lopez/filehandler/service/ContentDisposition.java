@@ -0,0 +1,57 @@
+package com.lopez.filehandler.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds Content-Disposition values for user supplied file names.
+ *
+ * The quoted {@code filename} is an ASCII fallback with quotes and
+ * backslashes escaped and anything else outside printable ASCII replaced,
+ * so a name cannot end the parameter early or inject another one. The
+ * exact name goes in {@code filename*} (RFC 6266 / RFC 5987), which
+ * clients prefer when they support it.
+ */
+public final class ContentDisposition {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private ContentDisposition() {
+    }
+
+    public static String attachment(String fileName) {
+        return "attachment; filename=\"" + quoted(fileName) + "\"; filename*=UTF-8''" + encoded(fileName);
+    }
+
+    static String quoted(String fileName) {
+        StringBuilder out = new StringBuilder(fileName.length() + 8);
+        for (int i = 0; i < fileName.length(); i++) {
+            char c = fileName.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                out.append('_');
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Percent-encodes everything but the RFC 5987 attr-char set.
+     */
+    static String encoded(String fileName) {
+        byte[] bytes = fileName.getBytes(StandardCharsets.UTF_8);
+        StringBuilder out = new StringBuilder(bytes.length * 3);
+        for (byte b : bytes) {
+            int c = b & 0xff;
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || "!#$&+-.^_`|~".indexOf(c) >= 0) {
+                out.append((char) c);
+            } else {
+                out.append('%').append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            }
+        }
+        return out.toString();
+    }
+}
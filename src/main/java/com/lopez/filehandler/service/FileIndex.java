@@ -0,0 +1,167 @@
+package com.lopez.filehandler.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lopez.filehandler.dto.FileIndexEntry;
+
+/**
+ * Maps a fileId to its S3 key and metadata without listing the store.
+ *
+ * Lookups go through three tiers: a bounded LRU of recently used entries, a
+ * bounded LRU of recent misses (so unknown ids cost nothing after the first
+ * probe), and finally one small JSON object per file stored under
+ * {@code index/} in the same storage backend. Every tier is O(1) in the
+ * number of stored files.
+ */
+class FileIndex {
+
+    static final String INDEX_PREFIX = "index/";
+
+    private static final Logger logger = Logger.getLogger(FileIndex.class);
+
+    private final StorageBackend storage;
+    private final ObjectMapper objectMapper;
+    private final long negativeTtlMillis;
+
+    private final Map<String, FileIndexEntry> entries;
+    private final Map<String, Long> misses;
+
+    FileIndex(StorageBackend storage, ObjectMapper objectMapper,
+            int cacheSize, int negativeCacheSize, long negativeTtlMillis) {
+        this.storage = storage;
+        this.objectMapper = objectMapper;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.entries = Collections.synchronizedMap(lru(cacheSize));
+        this.misses = Collections.synchronizedMap(lru(negativeCacheSize));
+    }
+
+    static String indexKey(String fileId) {
+        return INDEX_PREFIX + fileId + ".json";
+    }
+
+    /**
+     * Returns the entry for the given id, or null if the file is not indexed.
+     */
+    FileIndexEntry lookup(String fileId) {
+        FileIndexEntry cached = entries.get(fileId);
+        if (cached != null || recentlyMissed(fileId)) {
+            return cached;
+        }
+
+        try {
+            return remember(fileId, storage.getBytes(indexKey(fileId)));
+        } catch (Exception e) {
+            logger.errorf("Error reading index entry for %s: %s", fileId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Non-blocking {@link #lookup}: the in-memory tiers answer directly and
+     * only the durable read goes through {@code reader}, which receives the
+     * index key and completes with the JSON, or null if it does not exist.
+     */
+    CompletionStage<FileIndexEntry> lookupAsync(String fileId,
+            Function<String, CompletionStage<byte[]>> reader) {
+        FileIndexEntry cached = entries.get(fileId);
+        if (cached != null || recentlyMissed(fileId)) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return reader.apply(indexKey(fileId))
+                .thenApply(json -> {
+                    try {
+                        return remember(fileId, json);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .exceptionally(e -> {
+                    logger.errorf("Error reading index entry for %s: %s", fileId, e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Writes the entry to the durable index and the in-memory tier.
+     */
+    void put(FileIndexEntry entry) throws Exception {
+        storage.put(indexKey(entry.getFileId()), objectMapper.writeValueAsBytes(entry), "application/json", Map.of());
+        entries.put(entry.getFileId(), entry);
+        misses.remove(entry.getFileId());
+    }
+
+    /**
+     * Non-blocking {@link #put}: {@code writer} receives the index key and
+     * the JSON to store. The in-memory tier is only updated once it completes.
+     */
+    CompletionStage<Void> putAsync(FileIndexEntry entry, BiFunction<String, byte[], CompletionStage<?>> writer) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(entry);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return writer.apply(indexKey(entry.getFileId()), json)
+                .thenRun(() -> {
+                    entries.put(entry.getFileId(), entry);
+                    misses.remove(entry.getFileId());
+                });
+    }
+
+    /**
+     * Drops the in-memory state for one id after its index object was
+     * deleted. Delete paths remove the index object together with the file
+     * (usually in one bulk request) and then call this.
+     */
+    void evict(String fileId) {
+        entries.remove(fileId);
+    }
+
+    void clear() {
+        entries.clear();
+        misses.clear();
+    }
+
+    private boolean recentlyMissed(String fileId) {
+        Long missedAt = misses.get(fileId);
+        if (missedAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - missedAt < negativeTtlMillis) {
+            return true;
+        }
+        misses.remove(fileId);
+        return false;
+    }
+
+    private FileIndexEntry remember(String fileId, byte[] json) throws Exception {
+        if (json == null) {
+            misses.put(fileId, System.currentTimeMillis());
+            return null;
+        }
+        FileIndexEntry entry = objectMapper.readValue(json, FileIndexEntry.class);
+        entries.put(fileId, entry);
+        return entry;
+    }
+
+    private static <V> LinkedHashMap<String, V> lru(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
@@ -1,195 +1,708 @@
 package com.lopez.filehandler.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lopez.filehandler.dto.ApiResponse;
+import com.lopez.filehandler.dto.BlobIndexEntry;
+import com.lopez.filehandler.dto.CacheStats;
+import com.lopez.filehandler.dto.DeleteResult;
 import com.lopez.filehandler.dto.FileCollectionResponse;
 import com.lopez.filehandler.dto.FileCollectionResponseWithContent;
+import com.lopez.filehandler.dto.FileIndexEntry;
+import com.lopez.filehandler.dto.FileInfo;
+import com.lopez.filehandler.dto.FilePage;
 import com.lopez.filehandler.dto.FileResponse;
 import com.lopez.filehandler.dto.FileResponseWithContent;
 import com.lopez.filehandler.dto.FileUploadRequest;
-import com.lopez.filehandler.dto.MultiFileUploadRequest;
+import com.lopez.filehandler.dto.FileUploadResult;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.Startup;
+import io.quarkus.runtime.configuration.MemorySize;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
-import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
-import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.s3.model.StorageClass;
 
+@Startup
 @ApplicationScoped
 public class FileService {
 
     private static final Logger logger = Logger.getLogger(FileService.class);
     private static final List<String> ALLOWED_TYPES = Arrays.asList("application/pdf", "image/png", "image/jpeg");
 
-    S3Client s3Client;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String BLOB_KEY_METADATA = "blob-key";
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-fA-F]{64}");
+
+    // Only resolved with the s3 backend, so the filesystem backend needs no AWS configuration
+    @Inject
+    Instance<S3Client> s3Client;
+
+    StorageBackend storage;
+
+    FileIndex fileIndex;
+
+    ContentCache contentCache;
+
+    BlobStore blobStore;
+
+    BulkDeleter bulkDeleter;
+
+    JsonUploadReader uploadReader;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    ParallelTaskRunner taskRunner;
+
+    @Inject
+    PresignService presignService;
+
+    @Inject
+    MeterRegistry meterRegistry;
 
     @jakarta.annotation.PostConstruct
-    void initS3Client() {
-        try {
-            s3Client = S3Client.create();
-        } catch (Exception e) {
-            // S3 client will be null - handled in methods
+    void init() {
+        storage = createStorage();
+        fileIndex = new FileIndex(storage, objectMapper,
+                indexCacheSize, indexNegativeCacheSize, indexNegativeTtl.toMillis());
+        bulkDeleter = new BulkDeleter(storage, taskRunner, deleteParallelism, deleteTimeout);
+        uploadReader = new JsonUploadReader(objectMapper.getFactory(), maxBufferedBytes.asLongValue());
+        blobStore = new BlobStore(storage, objectMapper);
+        contentCache = new ContentCache(cacheHeapMaxBytes.asLongValue(), cacheHeapMaxObjectBytes.asLongValue(),
+                cacheDiskMaxBytes.asLongValue(), cacheDiskMaxObjectBytes.asLongValue(), Path.of(cacheDirectory));
+    }
+
+    private StorageBackend createStorage() {
+        switch (storageBackend) {
+            case "s3":
+                MultipartUploader uploader = new MultipartUploader(s3Client.get(), bucketName,
+                        StorageClass.fromValue(storageClass), taskRunner,
+                        (int) multipartPartSize.asLongValue(), multipartThreshold.asLongValue(),
+                        multipartParallelism, multipartMaxAttempts);
+                return new S3StorageBackend(s3Client.get(), bucketName, uploader, presignService);
+            case "filesystem":
+                logger.infof("Storing files under %s", storageRoot);
+                return new FileSystemStorageBackend(Path.of(storageRoot), objectMapper, storageFsync);
+            default:
+                throw new IllegalArgumentException("Unknown file-handler.storage.backend: " + storageBackend);
         }
     }
 
+    /**
+     * Runs the key parsing, listing mapping and upload parsing paths once on
+     * synthetic data so their classes are loaded and initialized at startup
+     * rather than on the first request. Makes no network calls.
+     */
+    void warmUp() throws IOException {
+        StoredObject sample = new StoredObject(S3Keys.fileKey("warmup", UUID.randomUUID().toString(), "warmup.pdf"),
+                1, "\"warmup\"", Instant.EPOCH);
+        FileResponse file = toFileResponse(sample);
+        toIndexEntry(file, sample.getEtag());
+        ResponseBudget budget = new ResponseBudget(maxInlineBytes.asLongValue());
+        budget.reserve(1);
+        budget.tryInline(sample.getSize());
+
+        byte[] body = ("{\"userId\":\"warmup\",\"fileName\":\"warmup.pdf\",\"contentType\":\"application/pdf\","
+                + "\"fileData\":\"JVBERi0=\"}").getBytes(StandardCharsets.UTF_8);
+        uploadReader.read(new ByteArrayInputStream(body), (userId, fileName, contentType) -> OutputStream.nullOutputStream());
+
+        storage.warmUp(sample.getKey());
+    }
+
+    /**
+     * Makes one cheap call to the storage backend so that, for S3, credential
+     * resolution, the TLS handshake and the connection are done before the
+     * first request.
+     */
+    void touchStorage() throws IOException {
+        storage.check();
+    }
+
+    FileIndex fileIndex() {
+        return fileIndex;
+    }
+
+    ContentCache contentCache() {
+        return contentCache;
+    }
+
+    boolean isDedupEnabled() {
+        return dedupEnabled;
+    }
+
+    /**
+     * Whether downloads can be answered with a redirect to the storage
+     * backend instead of being proxied.
+     */
+    public boolean canRedirectDownloads() {
+        return storage.supportsPresignedUrls();
+    }
+
+    /**
+     * Drops state that may be stale after a snapshot is restored: negative
+     * index entries could hide files uploaded in the meantime.
+     */
+    void resetTransientState() {
+        fileIndex.clear();
+    }
+
+    @ConfigProperty(name = "file-handler.storage.backend", defaultValue = "s3")
+    String storageBackend;
+
+    @ConfigProperty(name = "file-handler.storage.filesystem.root", defaultValue = "/var/lib/file-handler")
+    String storageRoot;
+
+    @ConfigProperty(name = "file-handler.storage.filesystem.fsync", defaultValue = "true")
+    boolean storageFsync;
+
     @ConfigProperty(name = "file-handler.s3.bucket-name", defaultValue = "test-bucket")
     String bucketName;
 
     @ConfigProperty(name = "file-handler.s3.storage-class", defaultValue = "STANDARD")
     String storageClass;
 
+    @ConfigProperty(name = "file-handler.fetch.parallelism", defaultValue = "8")
+    int fetchParallelism;
+
+    @ConfigProperty(name = "file-handler.fetch.timeout", defaultValue = "25s")
+    Duration fetchTimeout;
+
+    @ConfigProperty(name = "file-handler.fetch.max-page-size", defaultValue = "100")
+    int fetchMaxPageSize;
+
+    @ConfigProperty(name = "file-handler.upload.parallelism", defaultValue = "4")
+    int uploadParallelism;
+
+    @ConfigProperty(name = "file-handler.upload.timeout", defaultValue = "25s")
+    Duration uploadTimeout;
+
+    @ConfigProperty(name = "file-handler.upload.max-buffered-bytes", defaultValue = "32M")
+    MemorySize maxBufferedBytes;
+
+    @ConfigProperty(name = "file-handler.multipart.threshold", defaultValue = "16M")
+    MemorySize multipartThreshold;
+
+    @ConfigProperty(name = "file-handler.multipart.part-size", defaultValue = "8M")
+    MemorySize multipartPartSize;
+
+    @ConfigProperty(name = "file-handler.multipart.parallelism", defaultValue = "4")
+    int multipartParallelism;
+
+    @ConfigProperty(name = "file-handler.multipart.max-attempts", defaultValue = "3")
+    int multipartMaxAttempts;
+
+    @ConfigProperty(name = "file-handler.delete.parallelism", defaultValue = "4")
+    int deleteParallelism;
+
+    @ConfigProperty(name = "file-handler.delete.timeout", defaultValue = "25s")
+    Duration deleteTimeout;
+
+    @ConfigProperty(name = "file-handler.response.max-inline-bytes", defaultValue = "5M")
+    MemorySize maxInlineBytes;
+
+    @ConfigProperty(name = "file-handler.index.cache-size", defaultValue = "10000")
+    int indexCacheSize;
+
+    @ConfigProperty(name = "file-handler.index.negative-cache-size", defaultValue = "10000")
+    int indexNegativeCacheSize;
+
+    @ConfigProperty(name = "file-handler.index.negative-ttl", defaultValue = "60s")
+    Duration indexNegativeTtl;
+
+    @ConfigProperty(name = "file-handler.index.scan-on-miss", defaultValue = "false")
+    boolean indexScanOnMiss;
+
+    @ConfigProperty(name = "file-handler.cache.heap.max-bytes", defaultValue = "32M")
+    MemorySize cacheHeapMaxBytes;
+
+    @ConfigProperty(name = "file-handler.cache.heap.max-object-bytes", defaultValue = "256K")
+    MemorySize cacheHeapMaxObjectBytes;
+
+    @ConfigProperty(name = "file-handler.cache.disk.max-bytes", defaultValue = "256M")
+    MemorySize cacheDiskMaxBytes;
+
+    @ConfigProperty(name = "file-handler.cache.disk.max-object-bytes", defaultValue = "64M")
+    MemorySize cacheDiskMaxObjectBytes;
+
+    @ConfigProperty(name = "file-handler.cache.disk.directory", defaultValue = "/tmp/file-handler-cache")
+    String cacheDirectory;
+
+    @ConfigProperty(name = "file-handler.dedup.enabled", defaultValue = "false")
+    boolean dedupEnabled;
+
     public ApiResponse<FileResponse> uploadFile(FileUploadRequest request) {
         try {
-            if (s3Client == null) {
-                return ApiResponse.error("S3 service unavailable");
-            }
-
             if (!isValidFileType(request.getContentType())) {
                 return ApiResponse.badRequest("Only PDF, PNG, and JPG files are allowed");
             }
 
             String fileId = UUID.randomUUID().toString();
-            String s3Key = generateS3Key(request.getUserId(), fileId, request.getFileName());
+            if (dedupEnabled) {
+                return ApiResponse.success("File uploaded successfully", uploadDeduplicated(
+                        request.getUserId(), fileId, request.getFileName(), request.getContentType(),
+                        request.getFileData()));
+            }
+            String s3Key = S3Keys.fileKey(request.getUserId(), fileId, request.getFileName());
 
-            PutObjectRequest putRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(s3Key)
-                    .contentType(request.getContentType())
-                    .storageClass(StorageClass.fromValue(storageClass))
-                    .build();
+            UploadedObject uploaded = storage.upload(s3Key, request.getContentType(), request.getFileData());
+            return ApiResponse.success("File uploaded successfully",
+                    recordUpload(fileId, request.getFileName(), request.getContentType(), uploaded));
 
-            s3Client.putObject(putRequest, RequestBody.fromBytes(request.getFileData()));
+        } catch (Exception e) {
+            logger.error("Error uploading file", e);
+            return ApiResponse.error("Failed to upload file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uploads a JSON {@code FileUploadRequest} body without materializing it.
+     * The base64 fileData is decoded in chunks straight into the upload
+     * when the metadata fields precede it.
+     */
+    public ApiResponse<FileResponse> uploadFile(InputStream jsonBody) {
+        String fileId = UUID.randomUUID().toString();
+        UploadStream[] upload = new UploadStream[1];
+        MessageDigest[] digest = new MessageDigest[1];
 
-            FileResponse response = new FileResponse(
-                    fileId,
-                    request.getFileName(),
-                    request.getContentType(),
-                    s3Key,
-                    request.getFileData().length,
-                    LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        try {
+            JsonUploadReader.Result request = uploadReader.read(jsonBody, (userId, fileName, contentType) -> {
+                if (!isValidFileType(contentType)) {
+                    return null;
+                }
+                if (!dedupEnabled) {
+                    upload[0] = storage.openUpload(S3Keys.fileKey(userId, fileId, fileName), contentType);
+                    return upload[0];
+                }
+                upload[0] = storage.openUpload(blobStore.newBlobKey(), contentType);
+                digest[0] = BlobStore.sha256();
+                return new DigestOutputStream(upload[0], digest[0]);
+            });
 
-            logger.infof("File uploaded successfully: %s", s3Key);
-            return ApiResponse.success("File uploaded successfully", response);
+            if (request == null) {
+                return ApiResponse.badRequest("Request body is required");
+            }
+            if (request.rejected || (request.contentType != null && !isValidFileType(request.contentType))) {
+                abort(upload[0]);
+                return ApiResponse.badRequest("Only PDF, PNG, and JPG files are allowed");
+            }
+            if (request.userId == null || request.fileName == null || !request.hasFileData) {
+                abort(upload[0]);
+                return ApiResponse.badRequest("userId, fileName, contentType and fileData are required");
+            }
+            if (!request.streamed) {
+                logger.debugf("fileData arrived before the metadata fields, uploading from memory");
+                return uploadFile(new FileUploadRequest(
+                        request.userId, request.fileName, request.contentType, request.bufferedData));
+            }
 
+            upload[0].close();
+            logger.debugf("Streamed %d bytes from JSON body for %s", upload[0].bytesWritten(), request.fileName);
+            if (digest[0] != null) {
+                BlobIndexEntry blob = blobStore.commit(
+                        BlobStore.hex(digest[0].digest()), upload[0].result(), request.userId, fileId);
+                return ApiResponse.success("File uploaded successfully",
+                        storeReference(request.userId, fileId, request.fileName, request.contentType, blob));
+            }
+            return ApiResponse.success("File uploaded successfully",
+                    recordUpload(fileId, request.fileName, request.contentType, upload[0].result()));
+
+        } catch (JsonUploadReader.TooLargeException e) {
+            abort(upload[0]);
+            return ApiResponse.badRequest(e.getMessage());
+        } catch (JsonProcessingException e) {
+            abort(upload[0]);
+            logger.errorf("Failed to parse JSON: %s", e.getOriginalMessage());
+            return ApiResponse.badRequest("Invalid JSON format: " + e.getOriginalMessage());
         } catch (Exception e) {
+            abort(upload[0]);
             logger.error("Error uploading file", e);
             return ApiResponse.error("Failed to upload file: " + e.getMessage());
         }
     }
 
-    private ApiResponse<FileResponse> uploadFile(MultiFileUploadRequest request) {
-        try {
-            if (s3Client == null) {
-                return ApiResponse.error("S3 service unavailable");
-            }
+    private void abort(UploadStream upload) {
+        if (upload != null) {
+            upload.abort();
+        }
+    }
 
-            if (!isValidFileType(request.getContentType())) {
+    /**
+     * Uploads a raw binary body straight from the request stream. The payload
+     * is never materialized; large bodies go out as a multipart upload.
+     *
+     * With deduplication on, a client that sends the SHA-256 of the body
+     * skips the upload entirely when it already stores the same content.
+     */
+    public ApiResponse<FileResponse> uploadFile(String userId, FileInfo file, String contentSha256) {
+        try {
+            if (!isValidFileType(file.getContentType())) {
                 return ApiResponse.badRequest("Only PDF, PNG, and JPG files are allowed");
             }
 
             String fileId = UUID.randomUUID().toString();
-            String s3Key = generateS3Key(request.getUserId(), fileId, request.getFileName());
+            if (dedupEnabled) {
+                return uploadDeduplicated(userId, fileId, file, contentSha256);
+            }
+            String s3Key = S3Keys.fileKey(userId, fileId, file.getFileName());
 
-            PutObjectRequest putRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(s3Key)
-                    .contentType(request.getContentType())
-                    .storageClass(StorageClass.fromValue(storageClass))
-                    .build();
+            UploadedObject uploaded;
+            try (InputStream in = file.getInputStream()) {
+                uploaded = storage.upload(s3Key, file.getContentType(), in);
+            }
+            return ApiResponse.success("File uploaded successfully",
+                    recordUpload(fileId, file.getFileName(), file.getContentType(), uploaded));
 
-            s3Client.putObject(putRequest, RequestBody.fromString(request.getEncodedFile()));
+        } catch (Exception e) {
+            logger.error("Error uploading file", e);
+            return ApiResponse.error("Failed to upload file: " + e.getMessage());
+        }
+    }
+
+    private ApiResponse<FileResponse> uploadDeduplicated(String userId, String fileId, FileInfo file,
+            String contentSha256) throws Exception {
+        BlobIndexEntry blob = null;
+        if (contentSha256 != null) {
+            if (!SHA256_HEX.matcher(contentSha256).matches()) {
+                return ApiResponse.badRequest("X-Content-SHA256 must be 64 hex characters");
+            }
+            blob = blobStore.acquireOwned(contentSha256.toLowerCase(Locale.ROOT), userId, fileId);
+        }
+
+        if (blob != null) {
+            file.getInputStream().close();
+            logger.infof("Skipped upload of %s, content already stored as %s", file.getFileName(), blob.getBlobKey());
+        } else {
+            MessageDigest digest = BlobStore.sha256();
+            UploadedObject uploaded;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                uploaded = storage.upload(blobStore.newBlobKey(), file.getContentType(), in);
+            }
+            String hash = BlobStore.hex(digest.digest());
+            if (contentSha256 != null && !contentSha256.equalsIgnoreCase(hash)) {
+                bulkDeleter.deleteKeys(List.of(uploaded.getKey()));
+                return ApiResponse.badRequest("X-Content-SHA256 does not match the uploaded content");
+            }
+            blob = blobStore.commit(hash, uploaded, userId, fileId);
+        }
+
+        return ApiResponse.success("File uploaded successfully",
+                storeReference(userId, fileId, file.getFileName(), file.getContentType(), blob));
+    }
 
-            FileResponse response = new FileResponse(
-                    fileId,
-                    request.getFileName(),
-                    request.getContentType(),
-                    s3Key,
-                    request.getEncodedFile().length(),
-                    LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    /**
+     * Stores an in-memory payload as a deduplicated file, throwing on storage
+     * failures. The non-blocking upload hands deduplicated files here on a
+     * worker thread, since sharing a blob takes several conditional writes.
+     */
+    FileResponse uploadDeduplicated(String userId, String fileName, String contentType, byte[] data)
+            throws Exception {
+        return uploadDeduplicated(userId, UUID.randomUUID().toString(), fileName, contentType, data);
+    }
+
+    /**
+     * Hashes an in-memory payload first, so content that is already stored
+     * is not uploaded again.
+     */
+    private FileResponse uploadDeduplicated(String userId, String fileId, String fileName, String contentType,
+            byte[] data) throws Exception {
+        String hash = BlobStore.hex(BlobStore.sha256().digest(data));
+        BlobIndexEntry blob = blobStore.acquire(hash, userId, fileId);
+        if (blob != null) {
+            logger.infof("Skipped upload of %s, content already stored as %s", fileName, blob.getBlobKey());
+        } else {
+            blob = blobStore.commit(hash, storage.upload(blobStore.newBlobKey(), contentType, data), userId, fileId);
+        }
+        return storeReference(userId, fileId, fileName, contentType, blob);
+    }
 
-            logger.infof("File uploaded successfully: %s", s3Key);
-            return ApiResponse.success("File uploaded successfully", response);
+    /**
+     * Writes the user's zero-byte reference object for a deduplicated file.
+     * It keeps the usual key, so listings and prefix deletes are unchanged;
+     * the index entry records the blob that holds the bytes.
+     */
+    private FileResponse storeReference(String userId, String fileId, String fileName, String contentType,
+            BlobIndexEntry blob) throws Exception {
+        String s3Key = S3Keys.fileKey(userId, fileId, fileName);
+        try {
+            UploadedObject put = storage.put(s3Key, new byte[0], contentType,
+                    Map.of(BLOB_KEY_METADATA, blob.getBlobKey()));
+            return recordUpload(fileId, fileName, contentType, new UploadedObject(s3Key, blob.getSize(), put.getEtag()),
+                    blob);
+        } catch (Exception e) {
+            try {
+                bulkDeleter.deleteKeys(List.of(s3Key));
+            } catch (Exception cleanup) {
+                logger.errorf("Failed to remove reference %s: %s", s3Key, cleanup.getMessage());
+            }
+            FileIndexEntry reference = new FileIndexEntry();
+            reference.setFileId(fileId);
+            reference.setS3Key(s3Key);
+            reference.setBlobKey(blob.getBlobKey());
+            reference.setContentHash(blob.getHash());
+            releaseBlob(reference);
+            throw e;
+        }
+    }
 
+    /**
+     * Drops a deduplicated file's reference on its blob, deleting the blob
+     * when no other file uses it. Failures only leak storage, so they are
+     * logged rather than reported.
+     */
+    private void releaseBlob(FileIndexEntry entry) {
+        if (entry.getBlobKey() == null) {
+            return;
+        }
+        try {
+            String userId = S3Keys.userId(entry.getS3Key());
+            if (blobStore.release(entry.getBlobKey(), entry.getContentHash(), userId, entry.getFileId())) {
+                contentCache.evict(entry.getBlobKey());
+            }
         } catch (Exception e) {
-            logger.error("Error uploading file", e);
-            return ApiResponse.error("Failed to upload file: " + e.getMessage());
+            logger.errorf("Failed to release blob %s for %s: %s", entry.getBlobKey(), entry.getFileId(), e.getMessage());
         }
     }
 
-    public ApiResponse<List<FileResponse>> uploadMultipleFiles(String userId, List<FileUploadRequest> requests) {
-        List<FileResponse> responses = new ArrayList<>();
+    private FileResponse recordUpload(String fileId, String fileName, String contentType, UploadedObject uploaded)
+            throws Exception {
+        return recordUpload(fileId, fileName, contentType, uploaded, null);
+    }
 
-        for (FileUploadRequest request : requests) {
-            MultiFileUploadRequest multiRequest = new MultiFileUploadRequest(
-                    userId,
-                    request.getFileName(),
-                    request.getContentType(),
-                    Base64.getEncoder().encodeToString(request.getFileData()));
+    private FileResponse recordUpload(String fileId, String fileName, String contentType, UploadedObject uploaded,
+            BlobIndexEntry blob) throws Exception {
+        FileResponse response = new FileResponse(
+                fileId,
+                fileName,
+                contentType,
+                uploaded.getKey(),
+                uploaded.getSize(),
+                LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        FileIndexEntry entry = toIndexEntry(response, blob != null ? blob.getEtag() : uploaded.getEtag());
+        if (blob != null) {
+            entry.setBlobKey(blob.getBlobKey());
+            entry.setContentHash(blob.getHash());
+        }
+        fileIndex.put(entry);
 
-            ApiResponse<FileResponse> result = uploadFile(multiRequest);
+        logger.infof("File uploaded successfully: %s", uploaded.getKey());
+        return response;
+    }
 
-            if (result.isSuccess()) {
-                responses.add(result.getData());
-            } else {
-                return ApiResponse.error("Failed to upload file: " + request.getFileName());
+    /**
+     * Uploads the batch through a bounded worker pool and reports the outcome
+     * of every file. When {@code atomic} is set the first failure cancels the
+     * uploads still in flight and deletes the ones already written.
+     *
+     * A cancelled upload can still finish after the batch has given up on it,
+     * since cancelling only interrupts the worker. Results are recorded under
+     * a lock, and an upload that completes after the rollback has its own
+     * rollback queued as a single task, so nothing written by a failed atomic
+     * batch is kept and no worker waits on the pool it runs in.
+     */
+    public ApiResponse<List<FileUploadResult>> uploadMultipleFiles(String userId, List<FileUploadRequest> requests,
+            boolean atomic) {
+        FileUploadResult[] results = new FileUploadResult[requests.size()];
+        boolean[] rolledBack = new boolean[1];
+        List<Callable<Void>> uploads = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            int index = i;
+            FileUploadRequest request = requests.get(i);
+            uploads.add(() -> {
+                ApiResponse<FileResponse> result = uploadFile(new FileUploadRequest(
+                        userId, request.getFileName(), request.getContentType(), request.getFileData()));
+                FileUploadResult uploaded = new FileUploadResult(
+                        request.getFileName(), result.isSuccess(), result.getMessage(), result.getData());
+                boolean late;
+                synchronized (results) {
+                    results[index] = uploaded;
+                    late = rolledBack[0];
+                }
+                if (late) {
+                    taskRunner.submit(() -> {
+                        rollBackLate(uploaded);
+                        return null;
+                    });
+                    return null;
+                }
+                if (!result.isSuccess() && atomic) {
+                    throw new IllegalStateException(result.getMessage());
+                }
+                return null;
+            });
+        }
+
+        boolean aborted = false;
+        try {
+            taskRunner.invokeAll(uploads, uploadParallelism, uploadTimeout);
+        } catch (Exception e) {
+            logger.errorf("Batch upload aborted: %s", e.getMessage());
+            aborted = true;
+        }
+
+        List<FileUploadResult> outcome = new ArrayList<>(results.length);
+        boolean allSucceeded = !aborted;
+        synchronized (results) {
+            for (int i = 0; i < results.length; i++) {
+                FileUploadResult result = results[i];
+                if (result == null) {
+                    result = new FileUploadResult(requests.get(i).getFileName(), false, "Not attempted", null);
+                }
+                allSucceeded &= result.isSuccess();
+                outcome.add(result);
             }
+            // Uploads still finishing from here on roll themselves back
+            rolledBack[0] = atomic && !allSucceeded;
         }
 
-        return ApiResponse.success("Files uploaded successfully", responses);
+        if (allSucceeded) {
+            return ApiResponse.success("Files uploaded successfully", outcome);
+        }
+        if (atomic) {
+            rollBack(outcome);
+            return new ApiResponse<>(false, "Batch upload failed, no files were kept", outcome);
+        }
+        return new ApiResponse<>(false, "Some files failed to upload", outcome);
     }
 
-    public ApiResponse<FileCollectionResponseWithContent> getUserFiles(String userId) {
+    private void rollBack(List<FileUploadResult> outcome) {
+        List<String> keys = new ArrayList<>();
+        List<FileIndexEntry> references = new ArrayList<>();
+        for (FileUploadResult result : outcome) {
+            if (result.isSuccess()) {
+                keys.add(result.getFile().getS3Key());
+                keys.add(FileIndex.indexKey(result.getFile().getFileId()));
+                FileIndexEntry entry = fileIndex.lookup(result.getFile().getFileId());
+                if (entry != null && entry.getBlobKey() != null) {
+                    references.add(entry);
+                }
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
         try {
-            String prefix = "users/" + userId + "/";
+            DeleteResult deleted = bulkDeleter.deleteKeys(keys);
+            references.forEach(this::releaseBlob);
+            for (FileUploadResult result : outcome) {
+                if (result.isSuccess()) {
+                    fileIndex.evict(result.getFile().getFileId());
+                    result.setSuccess(false);
+                    result.setMessage("Rolled back");
+                }
+            }
+            if (!deleted.getFailures().isEmpty()) {
+                logger.errorf("Rollback left %d objects behind", deleted.getFailures().size());
+            }
+        } catch (Exception e) {
+            logger.error("Error rolling back batch upload", e);
+        }
+    }
 
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .prefix(prefix)
-                    .build();
+    /**
+     * Rolls back one upload that finished after its batch was rolled back.
+     * It deletes key by key rather than through the bulk deleter, because
+     * the bulk deleter fans out on the invokeAll workers this may be queued
+     * behind.
+     */
+    private void rollBackLate(FileUploadResult result) {
+        if (!result.isSuccess()) {
+            return;
+        }
+        FileResponse file = result.getFile();
+        try {
+            FileIndexEntry entry = fileIndex.lookup(file.getFileId());
+            storage.delete(file.getS3Key());
+            storage.delete(FileIndex.indexKey(file.getFileId()));
+            if (entry != null) {
+                releaseBlob(entry);
+            }
+            fileIndex.evict(file.getFileId());
+            logger.infof("Rolled back %s, which finished after its batch failed", file.getS3Key());
+        } catch (Exception e) {
+            logger.errorf("Failed to roll back late upload %s: %s", file.getS3Key(), e.getMessage());
+        }
+    }
 
-            ListObjectsV2Response listResponse = s3Client.listObjectsV2(listRequest);
-            List<FileResponseWithContent> files = new ArrayList<>();
+    /**
+     * Lists a user's files without touching object bodies. Content is fetched
+     * only through {@link #getUserFilesWithContent} or a per-file download.
+     */
+    public ApiResponse<FileCollectionResponse> getUserFiles(String userId, Integer limit, String cursor) {
+        try {
+            ObjectPage page = listPage("user_files", S3Keys.userPrefix(userId), pageSize(limit), cursor);
+            List<FileResponse> files = new ArrayList<>();
 
-            for (S3Object s3Object : listResponse.contents()) {
-                String[] keyParts = s3Object.key().split("/");
-                String fileName = keyParts[keyParts.length - 1];
+            for (StoredObject object : page.getObjects()) {
+                files.add(toFileResponse(object));
+            }
 
-                // Download file content
-                GetObjectRequest getRequest = GetObjectRequest.builder()
-                        .bucket(bucketName)
-                        .key(s3Object.key())
-                        .build();
+            FileCollectionResponse response = new FileCollectionResponse(userId, files, page.getNextCursor());
+            return files.isEmpty() && cursor == null
+                    ? ApiResponse.error("No files found for user")
+                    : ApiResponse.success(response);
 
-                byte[] fileData = s3Client.getObject(getRequest).readAllBytes();
-                String base64Content = java.util.Base64.getEncoder().encodeToString(fileData);
+        } catch (Exception e) {
+            logger.error("Error fetching user files", e);
+            return ApiResponse.error("Failed to fetch files: " + e.getMessage());
+        }
+    }
 
-                files.add(new FileResponseWithContent(
-                        extractFileId(s3Object.key()),
-                        fileName,
-                        getContentTypeFromKey(s3Object.key()),
-                        s3Object.key(),
-                        s3Object.size(),
-                        s3Object.lastModified().toString(),
-                        base64Content));
+    public ApiResponse<FileCollectionResponseWithContent> getUserFilesWithContent(String userId, Integer limit,
+            String cursor) {
+        try {
+            ObjectPage page = listPage("user_files_content", S3Keys.userPrefix(userId),
+                    pageSize(contentPageSize(limit)), cursor);
+            ResponseBudget budget = new ResponseBudget(maxInlineBytes.asLongValue());
+            // The page size is capped so that this always fits
+            boolean reserved = budget.reserve(page.getObjects().size());
+            ReadAhead bodies = new ReadAhead(taskRunner, fetchParallelism, fetchTimeout);
+            List<FileResponseWithContent> files = new ArrayList<>(page.getObjects().size());
+            for (StoredObject object : page.getObjects()) {
+                boolean inline = reserved && budget.tryInline(sizeOf(object));
+                files.add(toFileResponseWithContent(object, inline, bodies));
             }
 
-            FileCollectionResponseWithContent response = new FileCollectionResponseWithContent(userId, files);
-            return files.isEmpty()
+            FileCollectionResponseWithContent response = new FileCollectionResponseWithContent(
+                    userId, files, page.getNextCursor());
+            response.setBodies(bodies);
+            return files.isEmpty() && cursor == null
                     ? ApiResponse.error("No files found for user")
                     : ApiResponse.success(response);
 
@@ -199,20 +712,98 @@ public class FileService {
         }
     }
 
-    public ApiResponse<byte[]> downloadFile(String userId, String fileId) {
+    /**
+     * Walks every listing page under the user's prefix and hands each file's
+     * metadata to the consumer as it arrives.
+     */
+    public void streamUserFiles(String userId, Consumer<FileResponse> consumer) throws IOException {
+        scan("stream_user_files", S3Keys.userPrefix(userId), object -> {
+            consumer.accept(toFileResponse(object));
+            return true;
+        });
+    }
+
+    /**
+     * Same as {@link #streamUserFiles} but downloads each body as it is
+     * reached, so only one file is held at a time regardless of how many the
+     * user has.
+     *
+     * The whole response shares one budget. Pages are the size of a
+     * non-streamed content page, and the walk stops before the first page
+     * whose URL entries no longer fit; the cursor of that page is returned so
+     * the client can continue from it. Returns null when every file was sent.
+     */
+    public String streamUserFilesWithContent(String userId, String cursor, Consumer<FileResponseWithContent> consumer)
+            throws IOException {
+        ResponseBudget budget = new ResponseBudget(maxInlineBytes.asLongValue());
+        int pageSize = pageSize(contentPageSize(null));
+        int pages = 0;
+        long keys = 0;
+        try {
+            do {
+                ObjectPage page = storage.list(S3Keys.userPrefix(userId), pageSize, cursor);
+                if (!budget.reserve(page.getObjects().size()) && pages > 0) {
+                    return cursor;
+                }
+                pages++;
+                keys += page.getObjects().size();
+                try (ReadAhead bodies = new ReadAhead(taskRunner, fetchParallelism, fetchTimeout)) {
+                    for (StoredObject object : page.getObjects()) {
+                        consumer.accept(toFileResponseWithContent(object, budget.tryInline(sizeOf(object)), bodies));
+                    }
+                }
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            return null;
+        } finally {
+            recordListing("stream_user_files_content", pages, keys);
+        }
+    }
+
+    /**
+     * Attaches the object body without opening it: it is opened, base64-encoded
+     * straight into the response and closed while the DTO is serialized, so no
+     * byte[] or base64 String copy of the file is ever built. {@code bodies}
+     * opens the next few bodies of the page while one is being written and
+     * closes any left unread. Files that do not fit in the response budget get
+     * a download URL instead: presigned when the backend supports it,
+     * otherwise this service's own download endpoint.
+     */
+    private FileResponseWithContent toFileResponseWithContent(StoredObject object, boolean inline,
+            ReadAhead bodies) throws IOException {
+        String fileId = S3Keys.fileId(object.getKey());
+        String fileName = S3Keys.objectName(object.getKey());
+        String contentType = S3Keys.contentType(object.getKey());
+        FileIndexEntry reference = referenceOf(object);
+        String dataKey = reference != null ? reference.getBlobKey() : object.getKey();
+
+        FileResponseWithContent file = new FileResponseWithContent(
+                fileId,
+                fileName,
+                contentType,
+                object.getKey(),
+                reference != null ? reference.getSize() : object.getSize(),
+                object.getLastModified().toString(),
+                null);
+
+        if (inline) {
+            file.setFileContent(bodies.add(() -> storage.get(dataKey, null).getStream()));
+        } else if (storage.supportsPresignedUrls()) {
+            file.setDownloadUrl(storage.presignGet(dataKey, fileName, contentType));
+        } else {
+            file.setDownloadUrl("/file/" + fileId);
+        }
+        return file;
+    }
+
+    public ApiResponse<FileInfo> downloadFile(String userId, String fileId) {
         try {
-            String s3Key = findS3KeyByFileId(userId, fileId);
-            if (s3Key == null) {
+            FileIndexEntry entry = resolveFile(fileId);
+            if (entry == null || !entry.getS3Key().startsWith(S3Keys.userPrefix(userId))) {
                 return ApiResponse.error("File not found");
             }
 
-            GetObjectRequest getRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(s3Key)
-                    .build();
-
-            byte[] fileData = s3Client.getObject(getRequest).readAllBytes();
-            return ApiResponse.success(fileData);
+            return ApiResponse.success(openFile(entry));
 
         } catch (Exception e) {
             logger.error("Error downloading file", e);
@@ -220,78 +811,142 @@ public class FileService {
         }
     }
 
-    private boolean isValidFileType(String contentType) {
-        return ALLOWED_TYPES.contains(contentType);
-    }
+    /**
+     * Serves the file from the content cache when it holds the indexed ETag.
+     * Otherwise the object body is opened without reading it and teed into
+     * the cache as the caller reads it. Bodies that are already local files
+     * skip the cache and are handed out as a channel. The caller owns the
+     * returned stream and must close it once the bytes have been forwarded.
+     */
+    private FileInfo openFile(FileIndexEntry entry) throws IOException {
+        String s3Key = entry.getS3Key();
+        String dataKey = dataKey(entry);
+        FileInfo cached = contentCache.lookup(dataKey, entry.getEtag(), entry.getFileName(), entry.getContentType());
+        if (cached != null) {
+            return cached;
+        }
 
-    private String generateS3Key(String userId, String fileId, String fileName) {
-        return String.format("users/%s/%s_%s", userId, fileId, fileName);
-    }
+        ObjectContent content = storage.get(dataKey, null);
+
+        String fileName = S3Keys.objectName(s3Key);
+        String contentType = content.getContentType() != null
+                ? content.getContentType()
+                : S3Keys.contentType(s3Key);
 
-    private String extractFileId(String s3Key) {
-        String[] parts = s3Key.split("/");
-        String fileName = parts[parts.length - 1];
-        return fileName.split("_")[0];
+        if (content.getChannel() != null) {
+            return localFile(fileName, contentType, content);
+        }
+        return new FileInfo(fileName, contentType, content.getLength(),
+                contentCache.fill(dataKey, content.getEtag(), content.getLength(), content.getStream()));
     }
 
-    private String getContentTypeFromKey(String s3Key) {
-        if (s3Key.endsWith(".pdf"))
-            return "application/pdf";
-        if (s3Key.endsWith(".png"))
-            return "image/png";
-        if (s3Key.endsWith(".jpg") || s3Key.endsWith(".jpeg"))
-            return "image/jpeg";
-        return "application/octet-stream";
+    private static FileInfo localFile(String fileName, String contentType, ObjectContent content) {
+        FileInfo file = new FileInfo(fileName, contentType, content.getLength(), content.getStream());
+        file.setFileChannel(content.getChannel());
+        return file;
     }
 
-    private String findS3KeyByFileId(String userId, String fileId) {
+    /**
+     * Opens one byte range of a file. Ranges of cached files are served from
+     * the cache; otherwise only the requested bytes are read, with a ranged
+     * GET on S3. Partial bodies are never added to the cache.
+     */
+    public ApiResponse<FileInfo> downloadRange(String fileId, ByteRange range) {
         try {
-            String prefix = "users/" + userId + "/";
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .prefix(prefix)
-                    .build();
+            FileIndexEntry entry = resolveFile(fileId);
+            if (entry == null) {
+                return ApiResponse.error("File not found");
+            }
 
-            ListObjectsV2Response listResponse = s3Client.listObjectsV2(listRequest);
+            FileInfo cached = contentCache.lookup(
+                    dataKey(entry), entry.getEtag(), entry.getFileName(), entry.getContentType(), range);
+            if (cached != null) {
+                return ApiResponse.success(cached);
+            }
 
-            for (S3Object s3Object : listResponse.contents()) {
-                if (extractFileId(s3Object.key()).equals(fileId)) {
-                    return s3Object.key();
-                }
+            ObjectContent content = storage.get(dataKey(entry), range);
+            if (content.getChannel() != null) {
+                return ApiResponse.success(localFile(entry.getFileName(), entry.getContentType(), content));
             }
-            return null;
+            return ApiResponse.success(new FileInfo(entry.getFileName(), entry.getContentType(),
+                    content.getLength(), content.getStream()));
+
         } catch (Exception e) {
-            logger.error("Error finding S3 key", e);
-            return null;
+            logger.error("Error downloading file range", e);
+            return ApiResponse.error("Failed to download file: " + e.getMessage());
         }
     }
 
-    public ApiResponse<List<FileResponse>> getAllFiles() {
-        try {
-            if (s3Client == null) {
-                return ApiResponse.error("S3 service unavailable");
+    public CacheStats getCacheStats() {
+        return contentCache.stats();
+    }
+
+    static boolean isValidFileType(String contentType) {
+        return ALLOWED_TYPES.contains(contentType);
+    }
+
+    /**
+     * Resolves a fileId through the index. Objects written before the index
+     * existed are only found when {@code file-handler.index.scan-on-miss} is
+     * enabled, in which case a full paginated scan backfills their entry.
+     */
+    private FileIndexEntry resolveFile(String fileId) throws IOException {
+        FileIndexEntry entry = fileIndex.lookup(fileId);
+        if (entry != null || !indexScanOnMiss) {
+            return entry;
+        }
+
+        StoredObject[] found = new StoredObject[1];
+        scan("index_backfill", S3Keys.USERS_PREFIX, object -> {
+            if (S3Keys.fileId(object.getKey()).equals(fileId)) {
+                found[0] = object;
+                return false;
             }
+            return true;
+        });
+        if (found[0] == null) {
+            return null;
+        }
 
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .build();
+        StoredObject object = found[0];
+        entry = new FileIndexEntry(
+                fileId,
+                object.getKey(),
+                S3Keys.objectName(object.getKey()),
+                S3Keys.contentType(object.getKey()),
+                object.getSize(),
+                object.getLastModified().toString(),
+                object.getEtag(),
+                object.getLastModified().toString());
+        try {
+            fileIndex.put(entry);
+        } catch (Exception e) {
+            logger.errorf("Failed to backfill index entry for %s: %s", fileId, e.getMessage());
+        }
+        return entry;
+    }
 
-            ListObjectsV2Response listResponse = s3Client.listObjectsV2(listRequest);
-            List<FileResponse> files = new ArrayList<>();
+    static FileIndexEntry toIndexEntry(FileResponse file, String etag) {
+        return new FileIndexEntry(
+                file.getFileId(),
+                file.getS3Key(),
+                file.getFileName(),
+                file.getContentType(),
+                file.getSize(),
+                file.getUploadDate(),
+                etag,
+                Instant.now().toString());
+    }
 
-            for (S3Object s3Object : listResponse.contents()) {
-                String[] keyParts = s3Object.key().split("/");
-                String fileName = keyParts[keyParts.length - 1];
+    public ApiResponse<FilePage> getAllFiles(Integer limit, String cursor) {
+        try {
+            ObjectPage page = listPage("all_files", S3Keys.USERS_PREFIX, pageSize(limit), cursor);
+            List<FileResponse> files = new ArrayList<>();
 
-                files.add(new FileResponse(
-                        extractFileId(s3Object.key()),
-                        fileName,
-                        getContentTypeFromKey(s3Object.key()),
-                        s3Object.key(),
-                        s3Object.size(),
-                        s3Object.lastModified().toString()));
+            for (StoredObject object : page.getObjects()) {
+                files.add(toFileResponse(object));
             }
-            return ApiResponse.success(files);
+            return ApiResponse.success(new FilePage(files, page.getNextCursor()));
 
         } catch (Exception e) {
             logger.error("Error fetching all files", e);
@@ -299,26 +954,128 @@ public class FileService {
         }
     }
 
-    public ApiResponse<Void> deleteAllFiles() {
+    /**
+     * Walks every listing page and hands each file to the consumer as it
+     * arrives. Memory use is bounded by one listing page.
+     */
+    public void streamAllFiles(Consumer<FileResponse> consumer) throws IOException {
+        scan("stream_all_files", S3Keys.USERS_PREFIX, object -> {
+            consumer.accept(toFileResponse(object));
+            return true;
+        });
+    }
+
+    /**
+     * Lists one page for a paginated endpoint and records it as a scan of
+     * one page.
+     */
+    private ObjectPage listPage(String operation, String prefix, int pageSize, String cursor) throws IOException {
+        ObjectPage page = storage.list(prefix, pageSize, cursor);
+        recordListing(operation, 1, page.getObjects().size());
+        return page;
+    }
+
+    /**
+     * Walks every listing page under the prefix and hands each object to the
+     * visitor until it returns false. The pages and keys scanned are recorded
+     * even when the walk stops early or fails.
+     */
+    private void scan(String operation, String prefix, Predicate<StoredObject> visitor) throws IOException {
+        int pages = 0;
+        long keys = 0;
         try {
-            if (s3Client == null) {
-                return ApiResponse.error("S3 service unavailable");
-            }
+            String cursor = null;
+            do {
+                ObjectPage page = storage.list(prefix, MAX_PAGE_SIZE, cursor);
+                pages++;
+                keys += page.getObjects().size();
+                for (StoredObject object : page.getObjects()) {
+                    if (!visitor.test(object)) {
+                        return;
+                    }
+                }
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        } finally {
+            recordListing(operation, pages, keys);
+        }
+    }
 
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .build();
+    void recordListing(String operation, int pages, long keys) {
+        DistributionSummary.builder("filehandler.listing.pages")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(pages);
+        DistributionSummary.builder("filehandler.listing.keys")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(keys);
+    }
 
-            ListObjectsV2Response listResponse = s3Client.listObjectsV2(listRequest);
+    /**
+     * Content pages have two caps of their own: {@code fetch.max-page-size},
+     * since every inline file of the page is fetched while the response is
+     * written, and the number of URL entries that fit in the response budget,
+     * so a page never has to be cut short.
+     */
+    private Integer contentPageSize(Integer limit) {
+        int max = Math.min(fetchMaxPageSize, ResponseBudget.maxEntries(maxInlineBytes.asLongValue()));
+        return limit == null ? max : Math.min(limit, max);
+    }
 
-            for (S3Object s3Object : listResponse.contents()) {
-                s3Client.deleteObject(software.amazon.awssdk.services.s3.model.DeleteObjectRequest.builder()
-                        .bucket(bucketName)
-                        .key(s3Object.key())
-                        .build());
-            }
+    static int pageSize(Integer limit) {
+        return limit == null ? MAX_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
 
-            return ApiResponse.success("All files deleted", null);
+    private FileResponse toFileResponse(StoredObject object) {
+        return fileResponse(object, sizeOf(object));
+    }
+
+    static FileResponse fileResponse(StoredObject object, long size) {
+        String fileName = S3Keys.objectName(object.getKey());
+
+        return new FileResponse(
+                S3Keys.fileId(object.getKey()),
+                fileName,
+                S3Keys.contentType(object.getKey()),
+                object.getKey(),
+                size,
+                object.getLastModified().toString());
+    }
+
+    /**
+     * Returns the index entry of a listed deduplicated file, or null for a
+     * regular object. References are the only zero-byte objects under a
+     * user's prefix apart from genuinely empty files, so only those cost an
+     * index lookup.
+     */
+    private FileIndexEntry referenceOf(StoredObject object) {
+        if (object.getSize() != 0) {
+            return null;
+        }
+        FileIndexEntry entry = fileIndex.lookup(S3Keys.fileId(object.getKey()));
+        return entry != null && entry.getBlobKey() != null ? entry : null;
+    }
+
+    private long sizeOf(StoredObject object) {
+        FileIndexEntry reference = referenceOf(object);
+        return reference != null ? reference.getSize() : object.getSize();
+    }
+
+    /**
+     * The key holding a file's bytes: its blob for deduplicated files,
+     * otherwise the file's own key.
+     */
+    static String dataKey(FileIndexEntry entry) {
+        return entry.getBlobKey() != null ? entry.getBlobKey() : entry.getS3Key();
+    }
+
+    public ApiResponse<DeleteResult> deleteAllFiles() {
+        try {
+            DeleteResult result = bulkDeleter.deletePrefix("", null, null);
+            fileIndex.clear();
+            contentCache.clear();
+            return deleteResponse("All files deleted", result);
 
         } catch (Exception e) {
             logger.error("Error deleting all files", e);
@@ -326,33 +1083,140 @@ public class FileService {
         }
     }
 
-    public ApiResponse<byte[]> downloadFileById(String fileId) {
+    public ApiResponse<DeleteResult> deleteUserFiles(String userId) {
         try {
-            if (s3Client == null) {
-                logger.error("S3 client is null");
-                return ApiResponse.error("S3 service unavailable");
+            // Reference entries are captured before their index entries are deleted with them
+            Map<String, FileIndexEntry> references = new ConcurrentHashMap<>();
+            Queue<FileIndexEntry> released = new ConcurrentLinkedQueue<>();
+            DeleteResult result = bulkDeleter.deletePrefix(
+                    S3Keys.userPrefix(userId),
+                    object -> {
+                        FileIndexEntry reference = referenceOf(object);
+                        if (reference != null) {
+                            references.put(object.getKey(), reference);
+                        }
+                        return FileIndex.indexKey(S3Keys.fileId(object.getKey()));
+                    },
+                    key -> {
+                        fileIndex.evict(S3Keys.fileId(key));
+                        contentCache.evict(key);
+                        FileIndexEntry reference = references.get(key);
+                        if (reference != null) {
+                            released.add(reference);
+                        }
+                    });
+
+            List<Callable<Void>> releases = new ArrayList<>(released.size());
+            for (FileIndexEntry reference : released) {
+                releases.add(() -> {
+                    releaseBlob(reference);
+                    return null;
+                });
             }
+            taskRunner.invokeAll(releases, deleteParallelism, deleteTimeout);
+            return deleteResponse("User files deleted", result);
 
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .build();
+        } catch (Exception e) {
+            logger.error("Error deleting user files", e);
+            return ApiResponse.error("Failed to delete files: " + e.getMessage());
+        }
+    }
 
-            ListObjectsV2Response listResponse = s3Client.listObjectsV2(listRequest);
+    public ApiResponse<DeleteResult> deleteFile(String fileId) {
+        try {
+            FileIndexEntry entry = resolveFile(fileId);
+            if (entry == null) {
+                return ApiResponse.error("File not found");
+            }
 
-            for (S3Object s3Object : listResponse.contents()) {
-                String extractedId = extractFileId(s3Object.key());
+            DeleteResult result = bulkDeleter.deleteKeys(List.of(entry.getS3Key(), FileIndex.indexKey(fileId)));
+            fileIndex.evict(fileId);
+            contentCache.evict(entry.getS3Key());
+            if (result.getFailures().isEmpty()) {
+                releaseBlob(entry);
+            }
+            return deleteResponse("File deleted", result);
 
-                if (extractedId.equals(fileId)) {
-                    GetObjectRequest getRequest = GetObjectRequest.builder()
-                            .bucket(bucketName)
-                            .key(s3Object.key())
-                            .build();
+        } catch (Exception e) {
+            logger.error("Error deleting file", e);
+            return ApiResponse.error("Failed to delete file: " + e.getMessage());
+        }
+    }
 
-                    byte[] fileData = s3Client.getObject(getRequest).readAllBytes();
-                    return ApiResponse.success(fileData);
-                }
+    private ApiResponse<DeleteResult> deleteResponse(String message, DeleteResult result) {
+        if (result.getFailures().isEmpty()) {
+            return ApiResponse.success(message, result);
+        }
+        logger.warnf("Delete finished with %d failed keys", result.getFailures().size());
+        return new ApiResponse<>(false, "Some files could not be deleted", result);
+    }
+
+    /**
+     * Resolves the file and returns a presigned GET URL for it, so the bytes
+     * go straight from S3 to the client.
+     */
+    public ApiResponse<String> getDownloadUrl(String fileId) {
+        try {
+            if (!storage.supportsPresignedUrls()) {
+                return ApiResponse.error("Download URLs are not supported by the storage backend");
+            }
+            FileIndexEntry entry = resolveFile(fileId);
+            if (entry == null) {
+                return ApiResponse.error("File not found");
+            }
+            return ApiResponse.success(storage.presignGet(dataKey(entry), entry.getFileName(), entry.getContentType()));
+
+        } catch (Exception e) {
+            logger.error("Error creating download URL", e);
+            return ApiResponse.error("Failed to create download URL: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns a file's metadata without opening its body, for answering
+     * conditional requests. Index entries carry the ETag and last-modified
+     * time; entries that lack them are completed from the stored object.
+     */
+    public ApiResponse<FileIndexEntry> getFileMetadata(String fileId) {
+        try {
+            FileIndexEntry entry = resolveFile(fileId);
+            if (entry == null) {
+                return ApiResponse.error("File not found");
+            }
+            if (entry.getEtag() != null && entry.getLastModified() != null) {
+                return ApiResponse.success(entry);
+            }
+
+            StoredObject stored = storage.stat(dataKey(entry));
+            if (stored == null) {
+                return ApiResponse.error("File not found");
+            }
+            FileIndexEntry completed = new FileIndexEntry(
+                    entry.getFileId(),
+                    entry.getS3Key(),
+                    entry.getFileName(),
+                    entry.getContentType(),
+                    stored.getSize(),
+                    entry.getUploadDate(),
+                    stored.getEtag(),
+                    stored.getLastModified().toString());
+            completed.setBlobKey(entry.getBlobKey());
+            completed.setContentHash(entry.getContentHash());
+            return ApiResponse.success(completed);
+
+        } catch (Exception e) {
+            logger.error("Error reading file metadata", e);
+            return ApiResponse.error("Failed to read file metadata: " + e.getMessage());
+        }
+    }
+
+    public ApiResponse<FileInfo> downloadFileById(String fileId) {
+        try {
+            FileIndexEntry entry = resolveFile(fileId);
+            if (entry == null) {
+                return ApiResponse.error("File not found");
             }
-            return ApiResponse.error("File not found");
+            return ApiResponse.success(openFile(entry));
 
         } catch (Exception e) {
             logger.error("Error downloading file by ID", e);
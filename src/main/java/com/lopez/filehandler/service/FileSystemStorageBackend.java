@@ -0,0 +1,687 @@
+package com.lopez.filehandler.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lopez.filehandler.dto.DeleteFailure;
+
+/**
+ * Stores objects as files under a root directory, for running on-prem or
+ * locally without S3.
+ *
+ * Every key segment but the last becomes a directory. The last one names a
+ * file inside a shard directory {@code @xx} picked by a hash of the name, so
+ * a user with a million files is spread over 256 directories instead of
+ * one. Segments are percent-encoded into safe, reversible file names, so
+ * {@code users/u1/abc_report.pdf} lives at
+ * {@code objects/users/u1/@35/abc_report.pdf}. Keys that differ only in
+ * case need a case-sensitive filesystem.
+ *
+ * A file holds the object body followed by a JSON footer (ETag, content
+ * type, metadata, last-modified time), the footer length and a magic
+ * number, so body and metadata are replaced together. Writes go to a
+ * temporary file under {@code tmp/} on the same filesystem and are renamed
+ * into place atomically; conditional writes create a hard link instead,
+ * which fails if the target exists.
+ *
+ * Reads hand out the open FileChannel positioned at the body, and downloads
+ * are copied from it with transferTo (still through a buffer, since the
+ * response is an OutputStream). Listing reads
+ * and sorts every directory it passes, which makes paging through one very
+ * large directory cost a directory read per page; lookups by fileId go
+ * through the file index and never list.
+ */
+class FileSystemStorageBackend implements StorageBackend {
+
+    private static final Logger logger = Logger.getLogger(FileSystemStorageBackend.class);
+
+    private static final int FOOTER_MAGIC = 0x46484f31;
+    private static final int TRAILER_BYTES = 8;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int COMMIT_ATTEMPTS = 3;
+    private static final String SHARD_PREFIX = "@";
+    private static final Duration STALE_UPLOAD_AGE = Duration.ofHours(1);
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path root;
+    private final Path objects;
+    private final Path tmp;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+
+    /**
+     * @param fsync flush each object to disk before it becomes visible
+     */
+    FileSystemStorageBackend(Path root, ObjectMapper objectMapper, boolean fsync) {
+        this.root = root;
+        this.objects = root.resolve("objects");
+        this.tmp = root.resolve("tmp");
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(objects);
+            Files.createDirectories(tmp);
+            removeStaleUploads();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot initialize storage root " + root, e);
+        }
+    }
+
+    @Override
+    public void check() throws IOException {
+        if (!Files.isDirectory(objects) || !Files.isWritable(tmp)) {
+            throw new IOException("Storage root " + root + " is not a writable directory");
+        }
+    }
+
+    @Override
+    public void warmUp(String sampleKey) {
+        try {
+            decodeSegment(path(sampleKey).getFileName().toString());
+        } catch (IOException e) {
+            logger.debugf("Storage warm-up skipped: %s", e.getMessage());
+        }
+    }
+
+    @Override
+    public UploadedObject put(String key, byte[] data, String contentType, Map<String, String> metadata)
+            throws IOException {
+        return write(key, data, contentType, metadata, true);
+    }
+
+    @Override
+    public UploadedObject putIfAbsent(String key, byte[] data, String contentType) throws IOException {
+        return write(key, data, contentType, Map.of(), false);
+    }
+
+    @Override
+    public UploadedObject upload(String key, String contentType, byte[] data) throws IOException {
+        return write(key, data, contentType, Map.of(), true);
+    }
+
+    @Override
+    public UploadStream openUpload(String key, String contentType) throws IOException {
+        return new FileUploadStream(key, contentType, Map.of(), true);
+    }
+
+    @Override
+    public ObjectContent get(String key, ByteRange range) throws IOException {
+        FileChannel channel = FileChannel.open(path(key), StandardOpenOption.READ);
+        try {
+            long bodyLength = bodyLength(channel, key);
+            JsonNode footer = readFooter(channel, key, bodyLength);
+            long start = 0;
+            long length = bodyLength;
+            if (range != null) {
+                if (range.getStart() >= bodyLength) {
+                    throw new IOException("Range " + range + " is outside " + key);
+                }
+                start = range.getStart();
+                length = Math.min(range.getEnd() + 1, bodyLength) - start;
+            }
+            channel.position(start);
+            return new ObjectContent(footer.path("etag").asText(null), footer.path("contentType").asText(null),
+                    length, new BodyInputStream(channel, length), channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public byte[] getBytes(String key) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(key), StandardOpenOption.READ)) {
+            ByteBuffer body = ByteBuffer.allocate(Math.toIntExact(bodyLength(channel, key)));
+            readFully(channel, body, 0);
+            return body.array();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public StoredObject stat(String key) throws IOException {
+        return stat(key, path(key));
+    }
+
+    @Override
+    public ObjectPage list(String prefix, int maxKeys, String cursor) throws IOException {
+        String directoryKey = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+        List<StoredObject> page = new ArrayList<>(Math.min(maxKeys, 1000));
+        boolean complete = walk(directory(directoryKey), directoryKey, prefix, cursor, maxKeys, page);
+        String nextCursor = complete || page.isEmpty() ? null : page.get(page.size() - 1).getKey();
+        return new ObjectPage(page, nextCursor);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Path file = path(key);
+        if (Files.deleteIfExists(file)) {
+            pruneEmptyDirectories(file.getParent());
+        }
+    }
+
+    @Override
+    public List<DeleteFailure> deleteBatch(List<String> keys) {
+        List<DeleteFailure> failures = new ArrayList<>();
+        for (String key : keys) {
+            try {
+                delete(key);
+            } catch (IOException e) {
+                failures.add(new DeleteFailure(key, "DeleteFailed", e.getMessage()));
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public boolean supportsPresignedUrls() {
+        return false;
+    }
+
+    @Override
+    public String presignGet(String key, String fileName, String contentType) {
+        throw new UnsupportedOperationException("The filesystem backend cannot issue download URLs");
+    }
+
+    private UploadedObject write(String key, byte[] data, String contentType, Map<String, String> metadata,
+            boolean replace) throws IOException {
+        FileUploadStream upload = new FileUploadStream(key, contentType, metadata, replace);
+        try {
+            upload.write(data);
+        } catch (IOException | RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+        upload.close();
+        return upload.result();
+    }
+
+    /**
+     * Visits the directory in key order, descending into segment directories,
+     * and adds matching objects after the cursor until the page is full.
+     *
+     * @return false if matching objects remain beyond the page
+     */
+    private boolean walk(Path directory, String directoryKey, String prefix, String cursor, int maxKeys,
+            List<StoredObject> page) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+            for (Path child : children) {
+                String name = child.getFileName().toString();
+                if (name.startsWith(SHARD_PREFIX)) {
+                    collectObjects(child, directoryKey, prefix, cursor, entries);
+                    continue;
+                }
+                String segment = decodeSegment(name);
+                if (segment == null) {
+                    continue;
+                }
+                String subdirectoryKey = directoryKey + segment + "/";
+                boolean overlapsPrefix = subdirectoryKey.startsWith(prefix) || prefix.startsWith(subdirectoryKey);
+                // Every key below sorts before a cursor that is greater and outside the subtree
+                boolean afterCursor = cursor == null || subdirectoryKey.compareTo(cursor) > 0
+                        || cursor.startsWith(subdirectoryKey);
+                if (overlapsPrefix && afterCursor) {
+                    entries.add(new Entry(subdirectoryKey, child, true));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+
+        // A subtree sorts by its key prefix, which places it exactly where its keys belong
+        entries.sort(Comparator.comparing(entry -> entry.key));
+        for (Entry entry : entries) {
+            if (entry.directory) {
+                if (!walk(entry.path, entry.key, prefix, cursor, maxKeys, page)) {
+                    return false;
+                }
+                continue;
+            }
+            if (page.size() == maxKeys) {
+                return false;
+            }
+            StoredObject object = stat(entry.key, entry.path);
+            if (object != null) {
+                page.add(object);
+            }
+        }
+        return true;
+    }
+
+    private void collectObjects(Path shard, String directoryKey, String prefix, String cursor, List<Entry> entries)
+            throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shard)) {
+            for (Path file : files) {
+                String name = decodeSegment(file.getFileName().toString());
+                if (name == null) {
+                    continue;
+                }
+                String key = directoryKey + name;
+                if (key.startsWith(prefix) && (cursor == null || key.compareTo(cursor) > 0)) {
+                    entries.add(new Entry(key, file, false));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Pruned by a concurrent delete
+        }
+    }
+
+    private StoredObject stat(String key, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bodyLength = bodyLength(channel, key);
+            JsonNode footer = readFooter(channel, key, bodyLength);
+            Map<String, String> metadata = new LinkedHashMap<>();
+            for (Map.Entry<String, JsonNode> field : footer.path("metadata").properties()) {
+                metadata.put(field.getKey(), field.getValue().asText());
+            }
+            return new StoredObject(key, bodyLength, footer.path("etag").asText(null),
+                    Instant.ofEpochMilli(footer.path("lastModified").asLong()),
+                    footer.path("contentType").asText(null), metadata);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Length of the body, found from the trailer at the end of the file.
+     */
+    private long bodyLength(FileChannel channel, String key) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < TRAILER_BYTES) {
+            throw new IOException("Corrupt object file for " + key);
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+        readFully(channel, trailer, fileSize - TRAILER_BYTES);
+        trailer.flip();
+        int footerLength = trailer.getInt();
+        if (trailer.getInt() != FOOTER_MAGIC || footerLength < 0 || footerLength > fileSize - TRAILER_BYTES) {
+            throw new IOException("Corrupt object file for " + key);
+        }
+        return fileSize - TRAILER_BYTES - footerLength;
+    }
+
+    private JsonNode readFooter(FileChannel channel, String key, long bodyLength) throws IOException {
+        ByteBuffer footer = ByteBuffer.allocate((int) (channel.size() - TRAILER_BYTES - bodyLength));
+        readFully(channel, footer, bodyLength);
+        return objectMapper.readTree(footer.array());
+    }
+
+    private byte[] footer(String etag, String contentType, Map<String, String> metadata) throws IOException {
+        ObjectNode footer = objectMapper.createObjectNode();
+        footer.put("etag", etag);
+        footer.put("contentType", contentType);
+        footer.put("lastModified", System.currentTimeMillis());
+        ObjectNode fields = footer.putObject("metadata");
+        metadata.forEach(fields::put);
+
+        byte[] json = objectMapper.writeValueAsBytes(footer);
+        return ByteBuffer.allocate(json.length + TRAILER_BYTES)
+                .put(json)
+                .putInt(json.length)
+                .putInt(FOOTER_MAGIC)
+                .array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of object file");
+            }
+        }
+    }
+
+    /**
+     * Moves a finished temporary file to its key. A concurrent delete may
+     * prune the parent directory between creating it and the move, so the
+     * move is retried.
+     *
+     * @return false if {@code replace} is off and the key already exists
+     */
+    private boolean commit(Path source, String key, boolean replace) throws IOException {
+        Path target = path(key);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Files.createDirectories(target.getParent());
+                if (replace) {
+                    Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Files.createLink(target, source);
+                }
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                if (replace) {
+                    throw e;
+                }
+                return false;
+            } catch (NoSuchFileException e) {
+                if (attempt == COMMIT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void pruneEmptyDirectories(Path directory) {
+        while (!directory.equals(objects)) {
+            try {
+                Files.delete(directory);
+            } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+                return;
+            } catch (IOException e) {
+                logger.debugf("Could not remove empty directory %s: %s", directory, e.getMessage());
+                return;
+            }
+            directory = directory.getParent();
+        }
+    }
+
+    /**
+     * Deletes temporary files left behind by a crash. Another instance may
+     * share the root, so only files old enough to be abandoned are removed.
+     */
+    private void removeStaleUploads() throws IOException {
+        Instant cutoff = Instant.now().minus(STALE_UPLOAD_AGE);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tmp)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                    logger.infof("Removed abandoned upload %s", file);
+                }
+            }
+        }
+    }
+
+    private Path path(String key) throws IOException {
+        int slash = key.lastIndexOf('/');
+        String name = encodeSegment(key.substring(slash + 1));
+        return directory(key.substring(0, slash + 1))
+                .resolve(SHARD_PREFIX + HEX.toHexDigits((byte) name.hashCode()))
+                .resolve(name);
+    }
+
+    /**
+     * The directory for a key prefix that ends with a slash, or the root for
+     * an empty one.
+     */
+    private Path directory(String directoryKey) throws IOException {
+        Path directory = objects;
+        int start = 0;
+        int slash;
+        while ((slash = directoryKey.indexOf('/', start)) >= 0) {
+            directory = directory.resolve(encodeSegment(directoryKey.substring(start, slash)));
+            start = slash + 1;
+        }
+        return directory;
+    }
+
+    /**
+     * Percent-encodes everything except letters, digits, '-', '_' and a '.'
+     * that does not start the name, so no segment can be "..", hidden, or
+     * clash with a shard directory. An empty segment becomes a lone '%'.
+     */
+    static String encodeSegment(String segment) throws IOException {
+        if (segment.isEmpty()) {
+            return "%";
+        }
+        byte[] bytes = segment.getBytes(StandardCharsets.UTF_8);
+        StringBuilder name = new StringBuilder(bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xff;
+            boolean safe = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                    || b == '-' || b == '_' || (b == '.' && i > 0);
+            if (safe) {
+                name.append((char) b);
+            } else {
+                name.append('%').append(HEX.toHexDigits((byte) b).toUpperCase());
+            }
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new IOException("Key segment is too long for a file name: " + segment);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Reverses {@link #encodeSegment}, or returns null for a name it cannot
+     * have produced.
+     */
+    static String decodeSegment(String name) {
+        if (name.equals("%")) {
+            return "";
+        }
+        if (name.indexOf('%') < 0) {
+            return name;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '%') {
+                bytes.write(c);
+                continue;
+            }
+            if (i + 2 >= name.length() || !HexFormat.isHexDigit(name.charAt(i + 1))
+                    || !HexFormat.isHexDigit(name.charAt(i + 2))) {
+                return null;
+            }
+            bytes.write(HexFormat.fromHexDigits(name, i + 1, i + 3));
+            i += 2;
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final Path path;
+        final boolean directory;
+
+        Entry(String key, Path path, boolean directory) {
+            this.key = key;
+            this.path = path;
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * Writes the body to a temporary file while computing its MD5, which
+     * becomes the ETag as it would for a single-part S3 upload. Closing
+     * appends the footer and moves the file into place.
+     */
+    private final class FileUploadStream extends UploadStream {
+
+        private final String key;
+        private final String contentType;
+        private final Map<String, String> metadata;
+        private final boolean replace;
+        private final Path file;
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final MessageDigest md5 = md5();
+
+        private long size;
+        private boolean closed;
+        private UploadedObject result;
+
+        FileUploadStream(String key, String contentType, Map<String, String> metadata, boolean replace)
+                throws IOException {
+            this.key = key;
+            this.contentType = contentType;
+            this.metadata = metadata;
+            this.replace = replace;
+            this.file = tmp.resolve(UUID.randomUUID().toString());
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureOpen();
+            out.write(b);
+            md5.update((byte) b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            ensureOpen();
+            out.write(data, offset, length);
+            md5.update(data, offset, length);
+            size += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                String etag = "\"" + HEX.formatHex(md5.digest()) + "\"";
+                out.write(footer(etag, contentType, metadata));
+                out.flush();
+                if (fsync) {
+                    channel.force(true);
+                }
+                channel.close();
+                if (commit(file, key, replace)) {
+                    result = new UploadedObject(key, size, etag);
+                }
+            } finally {
+                channel.close();
+                Files.deleteIfExists(file);
+            }
+        }
+
+        @Override
+        void abort() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.errorf("Failed to remove temporary upload %s: %s", file, e.getMessage());
+            }
+        }
+
+        /**
+         * Null after a conditional write that found the key taken.
+         */
+        @Override
+        UploadedObject result() {
+            return result;
+        }
+
+        @Override
+        long bytesWritten() {
+            return size;
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Upload stream is closed");
+            }
+        }
+    }
+
+    /**
+     * Reads the body from the channel's position up to its length, leaving
+     * the footer out. Closing it closes the channel.
+     */
+    private static final class BodyInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        BodyInputStream(FileChannel channel, long length) {
+            super(Channels.newInputStream(channel));
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.lopez.filehandler.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Reads a {@code FileUploadRequest} JSON body token by token.
+ *
+ * When userId, fileName and contentType appear before fileData (the order
+ * our clients send them in), the base64 value is decoded chunk by chunk
+ * straight into the stream returned by the {@link UploadTarget}, so the
+ * payload never exists as a String or byte[]. If fileData comes first it is
+ * decoded into memory instead, up to {@code maxBufferedBytes}, and the
+ * caller uploads the bytes.
+ *
+ * Decode time is recorded in {@code filehandler.base64}. It includes
+ * writing to the target, which for streamed uploads means sending to S3.
+ */
+class JsonUploadReader {
+
+    /**
+     * Opens the destination for the decoded file bytes, or returns null to
+     * reject the upload (the value is then skipped without decoding).
+     */
+    @FunctionalInterface
+    interface UploadTarget {
+        OutputStream open(String userId, String fileName, String contentType) throws IOException;
+    }
+
+    static class Result {
+        String userId;
+        String fileName;
+        String contentType;
+        boolean hasFileData;
+        boolean streamed;
+        boolean rejected;
+        byte[] bufferedData;
+    }
+
+    /**
+     * Thrown when fileData has to be buffered and exceeds the cap.
+     */
+    static class TooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        TooLargeException(long maxBytes) {
+            super("fileData sent before userId, fileName and contentType may not exceed " + maxBytes + " bytes");
+        }
+    }
+
+    private final JsonFactory jsonFactory;
+    private final long maxBufferedBytes;
+
+    JsonUploadReader(JsonFactory jsonFactory, long maxBufferedBytes) {
+        this.jsonFactory = jsonFactory;
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    /**
+     * Returns null when the body is empty.
+     *
+     * @throws JsonParseException if the body is not a JSON object
+     */
+    Result read(InputStream in, UploadTarget target) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                return null;
+            }
+            if (first != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+
+            Result result = new Result();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "userId":
+                        result.userId = parser.getValueAsString();
+                        break;
+                    case "fileName":
+                        result.fileName = parser.getValueAsString();
+                        break;
+                    case "contentType":
+                        result.contentType = parser.getValueAsString();
+                        break;
+                    case "fileData":
+                        if (value != JsonToken.VALUE_NULL) {
+                            readFileData(parser, result, target);
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return result;
+        }
+    }
+
+    private void readFileData(JsonParser parser, Result result, UploadTarget target) throws IOException {
+        result.hasFileData = true;
+
+        if (result.userId == null || result.fileName == null || result.contentType == null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream() {
+                @Override
+                public void write(byte[] bytes, int offset, int length) {
+                    if (count + (long) length > maxBufferedBytes) {
+                        throw new UncheckedIOException(new TooLargeException(maxBufferedBytes));
+                    }
+                    super.write(bytes, offset, length);
+                }
+
+                @Override
+                public void write(int b) {
+                    write(new byte[] { (byte) b }, 0, 1);
+                }
+            };
+            try {
+                decode(parser, buffer);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            result.bufferedData = buffer.toByteArray();
+            return;
+        }
+
+        OutputStream out = target.open(result.userId, result.fileName, result.contentType);
+        if (out == null) {
+            result.rejected = true;
+            return;
+        }
+        decode(parser, out);
+        result.streamed = true;
+    }
+
+    private static void decode(JsonParser parser, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start();
+        int bytes = parser.readBinaryValue(out);
+        sample.stop(Metrics.timer("filehandler.base64", "direction", "decode"));
+        Metrics.summary("filehandler.base64.bytes", "direction", "decode").record(bytes);
+    }
+}
@@ -0,0 +1,54 @@
+package com.lopez.filehandler.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Opens its source on the first read. A DTO can carry a body this way
+ * without holding a connection or file handle until it is serialized, so
+ * a response that is abandoned before then leaks nothing. Closing it
+ * before the first read never opens the source.
+ */
+class LazyInputStream extends InputStream {
+
+    @FunctionalInterface
+    interface Opener {
+        InputStream open() throws IOException;
+    }
+
+    private final Opener opener;
+    private InputStream source;
+    private boolean closed;
+
+    LazyInputStream(Opener opener) {
+        this.opener = opener;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return source().read();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        return source().read(buffer, offset, length);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    private synchronized InputStream source() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (source == null) {
+            source = opener.open();
+        }
+        return source;
+    }
+}
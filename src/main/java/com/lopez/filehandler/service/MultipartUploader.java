@@ -0,0 +1,370 @@
+package com.lopez.filehandler.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.jboss.logging.Logger;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.StorageClass;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * Writes objects to S3, switching from a single PUT to a multipart upload
+ * once the payload reaches the threshold, whether it arrives as an array or
+ * as a stream. A stream is held in part buffers until it either ends below
+ * the threshold or reaches it.
+ *
+ * Parts are uploaded in parallel from a fixed pool of part buffers, so memory
+ * is bounded by the larger of the threshold and part size times
+ * (parallelism + 1), no matter how large the object is. Each part is retried
+ * on its own; if the upload still fails it is aborted so no orphaned parts are
+ * left in the bucket.
+ */
+class MultipartUploader {
+
+    /** S3 rejects parts smaller than 5 MiB, except for the last one. */
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final Logger logger = Logger.getLogger(MultipartUploader.class);
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final StorageClass storageClass;
+    private final ParallelTaskRunner taskRunner;
+    private final int partSize;
+    private final long threshold;
+    private final int parallelism;
+    private final int maxAttempts;
+
+    MultipartUploader(S3Client s3Client, String bucketName, StorageClass storageClass, ParallelTaskRunner taskRunner,
+            int partSize, long threshold, int parallelism, int maxAttempts) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.storageClass = storageClass;
+        this.taskRunner = taskRunner;
+        this.partSize = Math.max(MIN_PART_SIZE, partSize);
+        this.threshold = threshold;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Uploads an in-memory payload, using a single PUT below the threshold.
+     */
+    UploadedObject upload(String key, String contentType, byte[] data) throws IOException {
+        if (data.length < threshold) {
+            return putObject(key, contentType, data, data.length);
+        }
+        return upload(key, contentType, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Uploads a stream of unknown length.
+     */
+    UploadedObject upload(String key, String contentType, InputStream in) throws IOException {
+        MultipartStream out = openStream(key, contentType);
+        try {
+            in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        }
+        out.close();
+        return out.result();
+    }
+
+    /**
+     * Returns a stream that uploads whatever is written to it. Closing the
+     * stream completes the upload; {@link UploadStream#abort()} discards it.
+     */
+    MultipartStream openStream(String key, String contentType) {
+        return new MultipartStream(key, contentType);
+    }
+
+    private UploadedObject putObject(String key, String contentType, byte[] data, int length) {
+        return putObject(key, contentType, new ByteArrayInputStream(data, 0, length), length);
+    }
+
+    private UploadedObject putObject(String key, String contentType, InputStream data, long length) {
+        PutObjectRequest putRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .storageClass(storageClass)
+                .build();
+
+        PutObjectResponse response = s3Client.putObject(putRequest, RequestBody.fromInputStream(data, length));
+        return new UploadedObject(key, length, response.eTag());
+    }
+
+    class MultipartStream extends UploadStream {
+
+        private final String key;
+        private final String contentType;
+        private final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(parallelism + 1);
+        private final List<Future<CompletedPart>> parts = new ArrayList<>();
+        // Full part buffers held back until the stream reaches the threshold
+        private final List<byte[]> held = new ArrayList<>();
+
+        private int allocatedBuffers;
+        private byte[] buffer;
+        private int position;
+        private long totalBytes;
+        private String uploadId;
+        private UploadedObject result;
+        private boolean closed;
+
+        private MultipartStream(String key, String contentType) {
+            this.key = key;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            ensureOpen();
+            while (length > 0) {
+                if (buffer == null) {
+                    buffer = nextBuffer();
+                }
+                int chunk = Math.min(length, buffer.length - position);
+                System.arraycopy(data, offset, buffer, position, chunk);
+                position += chunk;
+                totalBytes += chunk;
+                offset += chunk;
+                length -= chunk;
+                if (position == buffer.length) {
+                    if (uploadId == null && totalBytes < threshold) {
+                        held.add(buffer);
+                        buffer = null;
+                        position = 0;
+                    } else {
+                        submitPart();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                if (uploadId == null && (totalBytes < threshold || totalBytes == 0)) {
+                    List<InputStream> chunks = new ArrayList<>(held.size() + 1);
+                    held.forEach(part -> chunks.add(new ByteArrayInputStream(part)));
+                    if (buffer != null) {
+                        chunks.add(new ByteArrayInputStream(buffer, 0, position));
+                    }
+                    result = putObject(key, contentType,
+                            new SequenceInputStream(Collections.enumeration(chunks)), totalBytes);
+                    return;
+                }
+
+                if (position > 0 || !held.isEmpty()) {
+                    submitPart();
+                }
+
+                List<CompletedPart> completed = new ArrayList<>(parts.size());
+                for (Future<CompletedPart> part : parts) {
+                    completed.add(part.get());
+                }
+                completed.sort(Comparator.comparing(CompletedPart::partNumber));
+
+                CompleteMultipartUploadResponse response = s3Client.completeMultipartUpload(
+                        CompleteMultipartUploadRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                                .build());
+                result = new UploadedObject(key, totalBytes, response.eTag());
+
+            } catch (ExecutionException e) {
+                abortUpload();
+                throw new IOException("Multipart upload failed for " + key, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abortUpload();
+                throw new IOException("Multipart upload interrupted for " + key, e);
+            } catch (RuntimeException e) {
+                abortUpload();
+                throw new IOException("Upload failed for " + key, e);
+            } finally {
+                buffer = null;
+                held.clear();
+                freeBuffers.clear();
+            }
+        }
+
+        @Override
+        void abort() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            abortUpload();
+            buffer = null;
+            held.clear();
+            freeBuffers.clear();
+        }
+
+        @Override
+        UploadedObject result() {
+            return result;
+        }
+
+        @Override
+        long bytesWritten() {
+            return totalBytes;
+        }
+
+        /**
+         * Starts the multipart upload if needed and submits the held buffers,
+         * then the current one.
+         */
+        private void submitPart() throws IOException {
+            if (uploadId == null) {
+                uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .storageClass(storageClass)
+                        .build()).uploadId();
+                logger.debugf("Started multipart upload %s for %s", uploadId, key);
+            }
+
+            for (byte[] part : held) {
+                submitPart(part, part.length);
+            }
+            held.clear();
+            if (buffer != null && position > 0) {
+                submitPart(buffer, position);
+            }
+            buffer = null;
+            position = 0;
+        }
+
+        private void submitPart(byte[] data, int length) {
+            int partNumber = parts.size() + 1;
+            parts.add(taskRunner.submit(() -> {
+                try {
+                    return uploadPart(partNumber, data, length);
+                } finally {
+                    freeBuffers.offer(data);
+                }
+            }));
+        }
+
+        private CompletedPart uploadPart(int partNumber, byte[] data, int length) {
+            RuntimeException lastError = null;
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                try {
+                    UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .contentLength((long) length)
+                            .build(),
+                            RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, length), length));
+                    return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+                } catch (RuntimeException e) {
+                    lastError = e;
+                    logger.warnf("Part %d of %s failed (attempt %d of %d): %s",
+                            partNumber, key, attempt, maxAttempts, e.getMessage());
+                }
+            }
+            throw lastError;
+        }
+
+        /**
+         * Takes a free part buffer, allocating up to parallelism + 1 of them and
+         * blocking the writer once they are all in flight. Before the threshold
+         * is reached nothing is in flight, so buffers to hold are always
+         * allocated.
+         */
+        private byte[] nextBuffer() throws IOException {
+            byte[] free = freeBuffers.poll();
+            if (free != null) {
+                return free;
+            }
+            if (allocatedBuffers <= parallelism || uploadId == null) {
+                allocatedBuffers++;
+                return new byte[partSize];
+            }
+            try {
+                byte[] released = freeBuffers.take();
+                failFastOnPartError();
+                return released;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a part buffer", e);
+            }
+        }
+
+        private void failFastOnPartError() throws IOException {
+            for (Future<CompletedPart> part : parts) {
+                if (part.isDone()) {
+                    try {
+                        part.get();
+                    } catch (ExecutionException | InterruptedException e) {
+                        abort();
+                        throw new IOException("Multipart upload failed for " + key, e);
+                    }
+                }
+            }
+        }
+
+        private void abortUpload() {
+            parts.forEach(part -> part.cancel(true));
+            if (uploadId == null) {
+                return;
+            }
+            try {
+                s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build());
+                logger.infof("Aborted multipart upload %s for %s", uploadId, key);
+            } catch (Exception e) {
+                logger.errorf("Failed to abort multipart upload %s for %s: %s", uploadId, key, e.getMessage());
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Upload stream is closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.lopez.filehandler.service;
+
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * An opened object body, or one range of it. Backends that store objects
+ * in local files also hand out the channel, positioned at the first byte,
+ * so the body can be sent with {@link FileChannel#transferTo}. Closing the
+ * stream closes the channel.
+ */
+class ObjectContent {
+    private final String etag;
+    private final String contentType;
+    private final long length;
+    private final InputStream stream;
+    private final FileChannel channel;
+
+    ObjectContent(String etag, String contentType, long length, InputStream stream, FileChannel channel) {
+        this.etag = etag;
+        this.contentType = contentType;
+        this.length = length;
+        this.stream = stream;
+        this.channel = channel;
+    }
+
+    String getEtag() { return etag; }
+
+    String getContentType() { return contentType; }
+
+    /** Bytes in this body, or -1 when the backend did not report it. */
+    long getLength() { return length; }
+
+    InputStream getStream() { return stream; }
+
+    FileChannel getChannel() { return channel; }
+}
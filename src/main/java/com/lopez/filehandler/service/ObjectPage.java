@@ -0,0 +1,21 @@
+package com.lopez.filehandler.service;
+
+import java.util.List;
+
+/**
+ * One page of a listing, in key order. The cursor is opaque and null on the
+ * last page.
+ */
+class ObjectPage {
+    private final List<StoredObject> objects;
+    private final String nextCursor;
+
+    ObjectPage(List<StoredObject> objects, String nextCursor) {
+        this.objects = objects;
+        this.nextCursor = nextCursor;
+    }
+
+    List<StoredObject> getObjects() { return objects; }
+
+    String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,165 @@
+package com.lopez.filehandler.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Runs blocking S3 calls concurrently with a per-call parallelism limit and
+ * deadline. Results are returned in task order; the first failure or an
+ * expired deadline cancels everything still in flight.
+ *
+ * Threads are capped at {@code file-handler.workers.max-threads} per pool,
+ * and work beyond that queues. {@link #invokeAll} workers and single
+ * {@link #submit submitted} tasks use separate pools, because an invokeAll
+ * task may submit work and wait for it (a multipart upload inside a batch
+ * upload); with one pool, a full set of waiting workers would starve the
+ * tasks they wait on.
+ */
+@ApplicationScoped
+public class ParallelTaskRunner {
+
+    @ConfigProperty(name = "file-handler.workers.max-threads", defaultValue = "64")
+    int maxThreads;
+
+    private ExecutorService executor;
+    private ExecutorService leafExecutor;
+
+    ParallelTaskRunner() {
+    }
+
+    ParallelTaskRunner(int maxThreads) {
+        this.maxThreads = maxThreads;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        executor = boundedPool("file-handler-worker-", maxThreads);
+        leafExecutor = boundedPool("file-handler-task-", maxThreads);
+    }
+
+    /**
+     * Runs the tasks with at most {@code parallelism} of them in flight and
+     * returns their results in the same order as the input list.
+     *
+     * @throws TimeoutException if the tasks did not all finish before the deadline
+     * @throws Exception the first exception thrown by any task; an Error is
+     *         wrapped in an ExecutionException
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> tasks, int parallelism, Duration timeout)
+            throws Exception {
+        if (tasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int workerCount = Math.max(1, Math.min(parallelism, tasks.size()));
+        Object[] results = new Object[tasks.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger running = new AtomicInteger(workerCount);
+        // Completed by the last worker to finish, or by the first failure
+        CompletableFuture<Void> settled = new CompletableFuture<>();
+        List<Future<?>> workers = new ArrayList<>(workerCount);
+
+        for (int w = 0; w < workerCount; w++) {
+            workers.add(executor.submit(() -> {
+                try {
+                    int i;
+                    while (failure.get() == null && (i = next.getAndIncrement()) < tasks.size()) {
+                        results[i] = tasks.get(i).call();
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    settled.complete(null);
+                } finally {
+                    if (running.decrementAndGet() == 0) {
+                        settled.complete(null);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        try {
+            settled.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new TimeoutException("Tasks did not complete within " + timeout);
+        } finally {
+            if (running.get() > 0) {
+                workers.forEach(worker -> worker.cancel(true));
+            }
+        }
+        Throwable error = failure.get();
+        if (error instanceof Exception) {
+            throw (Exception) error;
+        }
+        if (error != null) {
+            throw new ExecutionException("Task failed", error);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> ordered = (List<T>) Arrays.asList(results);
+        return new ArrayList<>(ordered);
+    }
+
+    /**
+     * Submits a single task to the shared worker pool. Callers are responsible
+     * for bounding how many they have in flight.
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return leafExecutor.submit(task);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        leafExecutor.shutdownNow();
+    }
+
+    /**
+     * Up to {@code threads} threads, started on demand and stopped after a
+     * minute idle, with an unbounded queue behind them.
+     */
+    private static ExecutorService boundedPool(String namePrefix, int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new WorkerThreadFactory(namePrefix));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        WorkerThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
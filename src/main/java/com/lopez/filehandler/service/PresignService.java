@@ -0,0 +1,178 @@
+package com.lopez.filehandler.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+/**
+ * Issues presigned S3 URLs from the Quarkus-managed presigner, which is built
+ * once from the {@code quarkus.s3.*} configuration.
+ *
+ * Issued URLs are cached per method, bucket, key and (for GETs) response
+ * headers for a short time so that repeated requests inside the validity
+ * window reuse the same URL instead of signing again. The cache TTL is capped at half the signature duration, so a
+ * cached URL always has at least half of its validity left.
+ *
+ * Signing time is recorded in {@code s3.presign} per method, and cache
+ * lookups in {@code s3.presign.cache} by result.
+ */
+@Startup
+@ApplicationScoped
+public class PresignService {
+
+    private static final Logger logger = Logger.getLogger(PresignService.class);
+
+    @Inject
+    S3Presigner presigner;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "file-handler.presign.duration", defaultValue = "1m")
+    Duration signatureDuration;
+
+    @ConfigProperty(name = "file-handler.presign.cache-ttl", defaultValue = "30s")
+    Duration cacheTtl;
+
+    @ConfigProperty(name = "file-handler.presign.cache-size", defaultValue = "10000")
+    int cacheSize;
+
+    private Map<String, CachedUrl> cache;
+
+    @jakarta.annotation.PostConstruct
+    void initCache() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUrl> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public String presignPut(String bucketName, String key) {
+        String cacheKey = "PUT " + bucketName + "/" + key;
+        String cached = cachedUrl(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        PutObjectRequest objectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+
+        PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+                .signatureDuration(signatureDuration)
+                .putObjectRequest(objectRequest)
+                .build();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PresignedPutObjectRequest presignedRequest = presigner.presignPutObject(presignRequest);
+        sample.stop(meterRegistry.timer("s3.presign", "method", "PUT"));
+        logger.debugf("Presigned %s for %s/%s", presignedRequest.httpRequest().method(), bucketName, key);
+
+        return remember(cacheKey, presignedRequest.url().toString());
+    }
+
+    /**
+     * Presigns a GET that makes S3 answer with the given Content-Disposition
+     * filename and Content-Type, so the client sees the same headers as a
+     * download proxied through this service.
+     */
+    public String presignGet(String bucketName, String key, String fileName, String contentType) {
+        // The response headers are part of the signature, and with dedup several
+        // users' files can share a key, so they are part of the cache key too.
+        String cacheKey = "GET " + bucketName + "/" + key + "\n" + fileName + "\n" + contentType;
+        String cached = cachedUrl(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        GetObjectRequest objectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .responseContentDisposition(ContentDisposition.attachment(fileName))
+                .responseContentType(contentType)
+                .build();
+
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(signatureDuration)
+                .getObjectRequest(objectRequest)
+                .build();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PresignedGetObjectRequest presignedRequest = presigner.presignGetObject(presignRequest);
+        sample.stop(meterRegistry.timer("s3.presign", "method", "GET"));
+        logger.debugf("Presigned %s for %s/%s", presignedRequest.httpRequest().method(), bucketName, key);
+
+        return remember(cacheKey, presignedRequest.url().toString());
+    }
+
+    /**
+     * Signs a request without caching it, to load the signer and resolve
+     * credentials before the first real request.
+     */
+    void warmUp(String bucketName, String key) {
+        presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(signatureDuration)
+                .getObjectRequest(GetObjectRequest.builder().bucket(bucketName).key(key).build())
+                .build());
+    }
+
+    /**
+     * URLs signed before a snapshot would be handed out long after they
+     * were issued, so the cache is emptied before checkpointing.
+     */
+    void clearCache() {
+        cache.clear();
+    }
+
+    private String cachedUrl(String cacheKey) {
+        CachedUrl cached = cache.get(cacheKey);
+        if (cached != null && System.nanoTime() - cached.issuedAt >= effectiveTtl().toNanos()) {
+            cache.remove(cacheKey);
+            cached = null;
+        }
+        meterRegistry.counter("s3.presign.cache", "result", cached != null ? "hit" : "miss").increment();
+        return cached != null ? cached.url : null;
+    }
+
+    private String remember(String cacheKey, String url) {
+        if (!effectiveTtl().isZero()) {
+            cache.put(cacheKey, new CachedUrl(url, System.nanoTime()));
+        }
+        return url;
+    }
+
+    private Duration effectiveTtl() {
+        Duration halfValidity = signatureDuration.dividedBy(2);
+        return cacheTtl.compareTo(halfValidity) < 0 ? cacheTtl : halfValidity;
+    }
+
+    private static class CachedUrl {
+        final String url;
+        final long issuedAt;
+
+        CachedUrl(String url, long issuedAt) {
+            this.url = url;
+            this.issuedAt = issuedAt;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.lopez.filehandler.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.lopez.filehandler.dto.ApiResponse;
+import com.lopez.filehandler.dto.DeleteFailure;
+import com.lopez.filehandler.dto.DeleteResult;
+import com.lopez.filehandler.dto.FileCollectionResponse;
+import com.lopez.filehandler.dto.FileIndexEntry;
+import com.lopez.filehandler.dto.FileResponse;
+import com.lopez.filehandler.dto.StreamedFile;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import mutiny.zero.flow.adapters.AdaptersToFlow;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Non-blocking counterpart of {@link FileService} for the S3 backend. Every
+ * S3 call goes through {@link S3AsyncClient}, so a request holds no thread
+ * while it waits on S3: endpoints built on this service run on the event
+ * loop, and their concurrency is bounded by the async client's connection
+ * pool rather than by the worker pool.
+ *
+ * The file index, the content cache and the blob store are shared with
+ * {@link FileService}, so both paths see each other's uploads and deletes
+ * and store a file the same way. Work that takes several conditional writes
+ * runs the blocking code on a worker thread: uploads while deduplication is
+ * on, and deletes of deduplicated files. Downloads are served from the heap
+ * tier of the content cache and fill it, but never touch the disk tier,
+ * which would read files on the event loop. Unlike the blocking path this
+ * one does not answer range or conditional requests, and listings do not
+ * scan for unindexed files.
+ */
+@ApplicationScoped
+public class ReactiveFileService {
+
+    private static final Logger logger = Logger.getLogger(ReactiveFileService.class);
+
+    @Inject
+    FileService fileService;
+
+    // Only resolved with the s3 backend, like the blocking client
+    @Inject
+    Instance<S3AsyncClient> s3AsyncClient;
+
+    @ConfigProperty(name = "file-handler.storage.backend", defaultValue = "s3")
+    String storageBackend;
+
+    @ConfigProperty(name = "file-handler.s3.bucket-name", defaultValue = "test-bucket")
+    String bucketName;
+
+    @ConfigProperty(name = "file-handler.s3.storage-class", defaultValue = "STANDARD")
+    String storageClass;
+
+    S3AsyncClient s3;
+
+    @PostConstruct
+    void init() {
+        if ("s3".equals(storageBackend)) {
+            s3 = s3AsyncClient.get();
+        }
+    }
+
+    /**
+     * Whether the non-blocking endpoints can serve requests; they need the
+     * s3 storage backend.
+     */
+    public boolean isAvailable() {
+        return s3 != null;
+    }
+
+    /**
+     * Uploads a body the HTTP layer has already read into memory, so the
+     * request never blocks while it arrives. A rejected file type is an
+     * unsuccessful response; a storage failure fails the Uni, so callers can
+     * tell the client's mistake from ours.
+     */
+    public Uni<ApiResponse<FileResponse>> uploadFile(String userId, String fileName, String contentType,
+            byte[] data) {
+        if (!FileService.isValidFileType(contentType)) {
+            return Uni.createFrom().item(ApiResponse.badRequest("Only PDF, PNG, and JPG files are allowed"));
+        }
+
+        Uni<FileResponse> upload = fileService.isDedupEnabled()
+                ? Uni.createFrom().item(() -> uploadDeduplicated(userId, fileName, contentType, data))
+                        .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+                : putFile(userId, fileName, contentType, data);
+        return upload
+                .map(response -> {
+                    logger.infof("File uploaded successfully: %s", response.getS3Key());
+                    return ApiResponse.success("File uploaded successfully", response);
+                })
+                .onFailure().transform(ReactiveFileService::unwrap)
+                .onFailure().invoke(e -> logger.error("Error uploading file", e));
+    }
+
+    private FileResponse uploadDeduplicated(String userId, String fileName, String contentType, byte[] data) {
+        try {
+            return fileService.uploadDeduplicated(userId, fileName, contentType, data);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private Uni<FileResponse> putFile(String userId, String fileName, String contentType, byte[] data) {
+        String fileId = UUID.randomUUID().toString();
+        String s3Key = S3Keys.fileKey(userId, fileId, fileName);
+        return Uni.createFrom().completionStage(() -> s3.putObject(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(s3Key)
+                        .contentType(contentType)
+                        .storageClass(storageClass)
+                        .build(),
+                        AsyncRequestBody.fromBytes(data)))
+                .chain(put -> {
+                    FileResponse response = new FileResponse(
+                            fileId,
+                            fileName,
+                            contentType,
+                            s3Key,
+                            data.length,
+                            LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                    return Uni.createFrom().completionStage(() -> fileService.fileIndex()
+                            .putAsync(FileService.toIndexEntry(response, put.eTag()), this::writeJson))
+                            .replaceWith(response);
+                });
+    }
+
+    /**
+     * Resolves the file and opens its body. A body held by the heap tier of
+     * the content cache is served from it; otherwise it is emitted chunk by
+     * chunk as S3 delivers it, is not read until it is subscribed to, and
+     * fills the cache when it is small enough.
+     */
+    public Uni<ApiResponse<StreamedFile>> downloadFile(String fileId) {
+        return lookup(fileId)
+                .chain(entry -> {
+                    if (entry == null) {
+                        return Uni.createFrom().item(ApiResponse.<StreamedFile>error("File not found"));
+                    }
+                    String dataKey = FileService.dataKey(entry);
+                    byte[] cached = entry.getLastModified() != null
+                            ? fileService.contentCache().lookupHeap(dataKey, entry.getEtag())
+                            : null;
+                    if (cached != null) {
+                        return Uni.createFrom().item(ApiResponse.success(new StreamedFile(
+                                entry.getFileName(),
+                                entry.getContentType(),
+                                entry.getEtag(),
+                                Instant.parse(entry.getLastModified()),
+                                Multi.createFrom().item(cached))));
+                    }
+                    return Uni.createFrom().completionStage(() -> s3.getObject(GetObjectRequest.builder()
+                                    .bucket(bucketName)
+                                    .key(dataKey)
+                                    .build(),
+                                    AsyncResponseTransformer.toPublisher()))
+                            .map(body -> ApiResponse.success(new StreamedFile(
+                                    entry.getFileName(),
+                                    entry.getContentType(),
+                                    body.response().eTag(),
+                                    entry.getLastModified() != null
+                                            ? Instant.parse(entry.getLastModified())
+                                            : body.response().lastModified(),
+                                    fillCache(dataKey, body.response().eTag(), body.response().contentLength(),
+                                            Multi.createFrom().publisher(AdaptersToFlow.publisher(body))
+                                                    .map(ReactiveFileService::toBytes)))));
+                })
+                .onFailure().recoverWithItem(e -> {
+                    if (unwrap(e) instanceof NoSuchKeyException) {
+                        return ApiResponse.error("File not found");
+                    }
+                    logger.error("Error downloading file", unwrap(e));
+                    return ApiResponse.error("Failed to download file: " + unwrap(e).getMessage());
+                });
+    }
+
+    public Uni<ApiResponse<FileCollectionResponse>> getUserFiles(String userId, Integer limit, String cursor) {
+        return Uni.createFrom().completionStage(() -> s3.listObjectsV2(ListObjectsV2Request.builder()
+                        .bucket(bucketName)
+                        .prefix(S3Keys.userPrefix(userId))
+                        .maxKeys(FileService.pageSize(limit))
+                        .continuationToken(cursor)
+                        .build()))
+                .chain(page -> {
+                    fileService.recordListing("user_files", 1, page.contents().size());
+                    String nextCursor = Boolean.TRUE.equals(page.isTruncated()) ? page.nextContinuationToken() : null;
+                    return Multi.createFrom().iterable(page.contents())
+                            .onItem().transformToUniAndConcatenate(this::toFileResponse)
+                            .collect().asList()
+                            .map(files -> files.isEmpty() && cursor == null
+                                    ? ApiResponse.<FileCollectionResponse>error("No files found for user")
+                                    : ApiResponse.success(new FileCollectionResponse(userId, files, nextCursor)));
+                })
+                .onFailure().recoverWithItem(e -> {
+                    logger.error("Error fetching user files", unwrap(e));
+                    return ApiResponse.error("Failed to fetch files: " + unwrap(e).getMessage());
+                });
+    }
+
+    /**
+     * Emits every file of the user, fetching the next listing page only as
+     * the subscriber asks for more, so memory use is bounded by one page.
+     */
+    public Multi<FileResponse> streamUserFiles(String userId) {
+        AtomicInteger pages = new AtomicInteger();
+        AtomicLong keys = new AtomicLong();
+        return Multi.createFrom().publisher(AdaptersToFlow.publisher(s3.listObjectsV2Paginator(
+                        ListObjectsV2Request.builder()
+                                .bucket(bucketName)
+                                .prefix(S3Keys.userPrefix(userId))
+                                .maxKeys(FileService.pageSize(null))
+                                .build())))
+                .onItem().invoke(page -> {
+                    pages.incrementAndGet();
+                    keys.addAndGet(page.contents().size());
+                })
+                .onItem().transformToIterable(ListObjectsV2Response::contents)
+                .onItem().transformToUniAndConcatenate(this::toFileResponse)
+                .onTermination().invoke(() -> fileService.recordListing("stream_user_files", pages.get(), keys.get()));
+    }
+
+    public Uni<ApiResponse<DeleteResult>> deleteFile(String fileId) {
+        return lookup(fileId)
+                .chain(entry -> {
+                    if (entry == null) {
+                        return Uni.createFrom().item(ApiResponse.<DeleteResult>error("File not found"));
+                    }
+                    if (entry.getBlobKey() != null) {
+                        return Uni.createFrom().item(() -> fileService.deleteFile(fileId))
+                                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+                    }
+                    return deleteKeys(List.of(entry.getS3Key(), FileIndex.indexKey(fileId)))
+                            .map(result -> {
+                                fileService.fileIndex().evict(fileId);
+                                fileService.contentCache().evict(entry.getS3Key());
+                                if (result.getFailures().isEmpty()) {
+                                    return ApiResponse.success("File deleted", result);
+                                }
+                                logger.warnf("Delete finished with %d failed keys", result.getFailures().size());
+                                return new ApiResponse<>(false, "Some files could not be deleted", result);
+                            });
+                })
+                .onFailure().recoverWithItem(e -> {
+                    logger.error("Error deleting file", unwrap(e));
+                    return ApiResponse.error("Failed to delete file: " + unwrap(e).getMessage());
+                });
+    }
+
+    /**
+     * Tees a body small enough for the heap tier into the content cache. The
+     * copy is only kept if every byte arrived.
+     */
+    private Multi<byte[]> fillCache(String key, String etag, Long length, Multi<byte[]> body) {
+        if (etag == null || length == null || !fileService.contentCache().fitsHeap(length)) {
+            return body;
+        }
+        ByteArrayOutputStream copy = new ByteArrayOutputStream(length.intValue());
+        return body
+                .onItem().invoke(chunk -> copy.write(chunk, 0, chunk.length))
+                .onCompletion().invoke(() -> {
+                    if (copy.size() == length) {
+                        fileService.contentCache().putHeapBody(key, etag, copy.toByteArray());
+                    }
+                });
+    }
+
+    private Uni<DeleteResult> deleteKeys(List<String> keys) {
+        List<ObjectIdentifier> identifiers = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            identifiers.add(ObjectIdentifier.builder().key(key).build());
+        }
+
+        return Uni.createFrom().completionStage(() -> s3.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(bucketName)
+                        .delete(Delete.builder().objects(identifiers).quiet(true).build())
+                        .build()))
+                .map(response -> {
+                    List<DeleteFailure> failures = new ArrayList<>(response.errors().size());
+                    for (S3Error error : response.errors()) {
+                        failures.add(new DeleteFailure(error.key(), error.code(), error.message()));
+                    }
+                    return new DeleteResult(keys.size() - failures.size(), failures);
+                });
+    }
+
+    private Uni<FileIndexEntry> lookup(String fileId) {
+        return Uni.createFrom().completionStage(() -> fileService.fileIndex().lookupAsync(fileId, this::readJson));
+    }
+
+    /**
+     * Same sizing as the blocking listing: only zero-byte objects may be
+     * references to a deduplicated blob and cost an index lookup.
+     */
+    private Uni<FileResponse> toFileResponse(S3Object s3Object) {
+        StoredObject object = new StoredObject(s3Object.key(), s3Object.size(), s3Object.eTag(),
+                s3Object.lastModified());
+        if (object.getSize() != 0) {
+            return Uni.createFrom().item(FileService.fileResponse(object, object.getSize()));
+        }
+        return lookup(S3Keys.fileId(object.getKey()))
+                .map(entry -> FileService.fileResponse(object,
+                        entry != null && entry.getBlobKey() != null ? entry.getSize() : 0));
+    }
+
+    private CompletionStage<byte[]> readJson(String key) {
+        return s3.getObject(GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .build(),
+                        AsyncResponseTransformer.toBytes())
+                .<byte[]>thenApply(ResponseBytes::asByteArray)
+                .exceptionally(e -> {
+                    if (unwrap(e) instanceof NoSuchKeyException) {
+                        return null;
+                    }
+                    throw new CompletionException(unwrap(e));
+                });
+    }
+
+    private CompletionStage<?> writeJson(String key, byte[] json) {
+        return s3.putObject(PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType("application/json")
+                .build(),
+                AsyncRequestBody.fromBytes(json));
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,139 @@
+package com.lopez.filehandler.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Hands out lazy bodies for a list of files that are written one after
+ * another, and opens a bounded window of the following bodies in the
+ * background. While body i is being written, bodies i+1..i+window are
+ * already being fetched, so a page costs about the slowest fetches rather
+ * than the sum of them, yet no more than window+1 bodies are open at once.
+ *
+ * Bodies opened ahead that were never handed to a reader are closed by
+ * {@link #close}, which the owner of the response must call once it has
+ * been written or abandoned.
+ */
+class ReadAhead implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(ReadAhead.class);
+
+    private final ParallelTaskRunner taskRunner;
+    private final int window;
+    private final Duration timeout;
+    private final List<LazyInputStream.Opener> openers = new ArrayList<>();
+    private final Map<Integer, CompletableFuture<InputStream>> pending = new HashMap<>();
+    private int nextToSubmit;
+    private boolean closed;
+
+    ReadAhead(ParallelTaskRunner taskRunner, int window, Duration timeout) {
+        this.taskRunner = taskRunner;
+        this.window = Math.max(0, window);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Adds a body in write order. Nothing is opened until the returned stream
+     * is first read.
+     */
+    synchronized InputStream add(LazyInputStream.Opener opener) {
+        int index = openers.size();
+        openers.add(opener);
+        return new LazyInputStream(() -> take(index));
+    }
+
+    private InputStream take(int index) throws IOException {
+        CompletableFuture<InputStream> body;
+        LazyInputStream.Opener opener;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            body = pending.remove(index);
+            opener = openers.get(index);
+            nextToSubmit = Math.max(nextToSubmit, index + 1);
+            int end = (int) Math.min(openers.size(), (long) index + 1 + window);
+            for (; nextToSubmit < end; nextToSubmit++) {
+                prefetch(nextToSubmit);
+            }
+        }
+
+        if (body == null) {
+            return opener.open();
+        }
+        try {
+            return body.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // The fetch closes the body itself if it completes after this
+            body.completeExceptionally(e);
+            throw new IOException("Body was not opened within " + timeout);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while opening body");
+        }
+    }
+
+    private void prefetch(int index) {
+        CompletableFuture<InputStream> body = new CompletableFuture<>();
+        LazyInputStream.Opener opener = openers.get(index);
+        pending.put(index, body);
+        taskRunner.submit(() -> {
+            InputStream in;
+            try {
+                in = opener.open();
+            } catch (Throwable e) {
+                body.completeExceptionally(e);
+                return null;
+            }
+            boolean handedOver;
+            synchronized (this) {
+                handedOver = !closed && body.complete(in);
+            }
+            if (!handedOver) {
+                closeQuietly(in);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        List<InputStream> unread = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (CompletableFuture<InputStream> body : pending.values()) {
+                if (body.isDone() && !body.isCompletedExceptionally()) {
+                    unread.add(body.join());
+                }
+            }
+            pending.clear();
+        }
+        unread.forEach(ReadAhead::closeQuietly);
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            logger.debugf("Failed to close unread body: %s", e.getMessage());
+        }
+    }
+}
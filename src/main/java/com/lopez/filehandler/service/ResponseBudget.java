@@ -0,0 +1,70 @@
+package com.lopez.filehandler.service;
+
+/**
+ * Plans which files of a content listing are inlined as base64 and which are
+ * handed out as presigned URLs, using only the sizes from the listing. The
+ * decision is made before anything is downloaded, so no bytes are fetched
+ * just to be dropped when the response turns out to be too large.
+ *
+ * Room for a URL entry is reserved for every file of a page before any of
+ * them is planned, so a file that does not fit inline always has its URL
+ * entry paid for and the response never outgrows the budget.
+ */
+class ResponseBudget {
+
+    /** Field names, metadata values and separators of one file entry. */
+    static final int ENTRY_OVERHEAD = 512;
+
+    /** A presigned URL with its query string, on top of the entry overhead. */
+    static final int URL_OVERHEAD = 2048;
+
+    static final int URL_ENTRY = ENTRY_OVERHEAD + URL_OVERHEAD;
+
+    private long remaining;
+
+    ResponseBudget(long maxBytes) {
+        this.remaining = maxBytes;
+    }
+
+    /**
+     * The most entries a response of this size can hold, all as URLs.
+     */
+    static int maxEntries(long maxBytes) {
+        return (int) Math.min(Integer.MAX_VALUE, maxBytes / URL_ENTRY);
+    }
+
+    /**
+     * Reserves a URL entry for each of {@code entries} files, or returns
+     * false and reserves nothing if they do not all fit.
+     */
+    synchronized boolean reserve(int entries) {
+        long cost = (long) entries * URL_ENTRY;
+        if (cost > remaining) {
+            return false;
+        }
+        remaining -= cost;
+        return true;
+    }
+
+    /**
+     * Returns true if a file whose URL entry is already reserved fits
+     * inline instead, and trades the reservation for the inline cost.
+     * Otherwise the URL reservation stands and it returns false.
+     */
+    synchronized boolean tryInline(long size) {
+        long extra = base64Length(size) + ENTRY_OVERHEAD - URL_ENTRY;
+        if (extra <= remaining) {
+            remaining -= extra;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized long remaining() {
+        return remaining;
+    }
+
+    static long base64Length(long size) {
+        return 4 * ((size + 2) / 3);
+    }
+}
@@ -0,0 +1,55 @@
+package com.lopez.filehandler.service;
+
+/**
+ * Layout of user file keys: {@code users/{userId}/{fileId}_{fileName}}.
+ *
+ * These run once or more per listed object, so they use indexOf and
+ * substring instead of String.split, which builds an array of every
+ * segment, and String.format, which parses the format on each call.
+ */
+final class S3Keys {
+
+    static final String USERS_PREFIX = "users/";
+
+    private S3Keys() {
+    }
+
+    static String userPrefix(String userId) {
+        return USERS_PREFIX + userId + "/";
+    }
+
+    static String fileKey(String userId, String fileId, String fileName) {
+        return USERS_PREFIX + userId + "/" + fileId + "_" + fileName;
+    }
+
+    /**
+     * The last path segment of the key, which is {@code {fileId}_{fileName}}
+     * for user files.
+     */
+    static String objectName(String key) {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    static String fileId(String key) {
+        int start = key.lastIndexOf('/') + 1;
+        int separator = key.indexOf('_', start);
+        return separator < 0 ? key.substring(start) : key.substring(start, separator);
+    }
+
+    /**
+     * The user id of a key under {@code users/}.
+     */
+    static String userId(String key) {
+        return key.substring(USERS_PREFIX.length(), key.lastIndexOf('/'));
+    }
+
+    static String contentType(String key) {
+        if (key.endsWith(".pdf"))
+            return "application/pdf";
+        if (key.endsWith(".png"))
+            return "image/png";
+        if (key.endsWith(".jpg") || key.endsWith(".jpeg"))
+            return "image/jpeg";
+        return "application/octet-stream";
+    }
+}
@@ -0,0 +1,199 @@
+package com.lopez.filehandler.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.lopez.filehandler.dto.DeleteFailure;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Stores objects in one S3 bucket. Large payloads go out through the
+ * {@link MultipartUploader}; listing cursors are S3 continuation tokens.
+ */
+class S3StorageBackend implements StorageBackend {
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final MultipartUploader uploader;
+    private final PresignService presignService;
+
+    S3StorageBackend(S3Client s3Client, String bucketName, MultipartUploader uploader,
+            PresignService presignService) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.uploader = uploader;
+        this.presignService = presignService;
+    }
+
+    /**
+     * Also opens the connection, so credential resolution and the TLS
+     * handshake are done before the first request.
+     */
+    @Override
+    public void check() {
+        s3Client.headBucket(HeadBucketRequest.builder().bucket(bucketName).build());
+    }
+
+    @Override
+    public void warmUp(String sampleKey) {
+        presignService.warmUp(bucketName, sampleKey);
+    }
+
+    @Override
+    public UploadedObject put(String key, byte[] data, String contentType, Map<String, String> metadata) {
+        PutObjectResponse response = s3Client.putObject(PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .metadata(metadata)
+                .build(),
+                RequestBody.fromBytes(data));
+        return new UploadedObject(key, data.length, response.eTag());
+    }
+
+    @Override
+    public UploadedObject putIfAbsent(String key, byte[] data, String contentType) {
+        try {
+            PutObjectResponse response = s3Client.putObject(PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .ifNoneMatch("*")
+                    .build(),
+                    RequestBody.fromBytes(data));
+            return new UploadedObject(key, data.length, response.eTag());
+        } catch (S3Exception e) {
+            // 409 when a conditional write races another one on the same key
+            if (e.statusCode() == 412 || e.statusCode() == 409) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public UploadedObject upload(String key, String contentType, byte[] data) throws IOException {
+        return uploader.upload(key, contentType, data);
+    }
+
+    @Override
+    public UploadStream openUpload(String key, String contentType) {
+        return uploader.openStream(key, contentType);
+    }
+
+    @Override
+    public ObjectContent get(String key, ByteRange range) {
+        ResponseInputStream<GetObjectResponse> body = s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range(range != null ? range.toRangeHeader() : null)
+                .build());
+        GetObjectResponse response = body.response();
+        long length = response.contentLength() != null ? response.contentLength()
+                : range != null ? range.length() : -1;
+        return new ObjectContent(response.eTag(), response.contentType(), length, body, null);
+    }
+
+    @Override
+    public byte[] getBytes(String key) {
+        try {
+            return s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build()).asByteArray();
+        } catch (NoSuchKeyException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public StoredObject stat(String key) {
+        try {
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build());
+            return new StoredObject(key, head.contentLength(), head.eTag(), head.lastModified(),
+                    head.contentType(), head.metadata());
+        } catch (NoSuchKeyException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public ObjectPage list(String prefix, int maxKeys, String cursor) {
+        ListObjectsV2Response response = s3Client.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .maxKeys(maxKeys)
+                .continuationToken(cursor)
+                .build());
+
+        List<StoredObject> objects = new ArrayList<>(response.contents().size());
+        for (S3Object s3Object : response.contents()) {
+            objects.add(new StoredObject(s3Object.key(), s3Object.size(), s3Object.eTag(), s3Object.lastModified()));
+        }
+        return new ObjectPage(objects,
+                Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null);
+    }
+
+    @Override
+    public void delete(String key) {
+        s3Client.deleteObject(DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build());
+    }
+
+    @Override
+    public List<DeleteFailure> deleteBatch(List<String> keys) {
+        List<ObjectIdentifier> identifiers = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            identifiers.add(ObjectIdentifier.builder().key(key).build());
+        }
+
+        DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                .bucket(bucketName)
+                .delete(Delete.builder().objects(identifiers).quiet(true).build())
+                .build());
+
+        List<DeleteFailure> failures = new ArrayList<>(response.errors().size());
+        for (S3Error error : response.errors()) {
+            failures.add(new DeleteFailure(error.key(), error.code(), error.message()));
+        }
+        return failures;
+    }
+
+    @Override
+    public boolean supportsPresignedUrls() {
+        return true;
+    }
+
+    @Override
+    public String presignGet(String key, String fileName, String contentType) {
+        return presignService.presignGet(bucketName, key, fileName, contentType);
+    }
+}
@@ -0,0 +1,107 @@
+package com.lopez.filehandler.service;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lopez.filehandler.dto.ApiResponse;
+import com.lopez.filehandler.dto.FileCollectionResponseWithContent;
+import com.lopez.filehandler.dto.FileIndexEntry;
+import com.lopez.filehandler.dto.FilePage;
+import com.lopez.filehandler.dto.FileResponse;
+import com.lopez.filehandler.dto.FileResponseWithContent;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Moves first-request work to startup: class loading and initialization of
+ * the Jackson serializers, the presigner and the key parsing helpers, and
+ * optionally the S3 connection itself.
+ *
+ * The primer is also registered as a CRaC resource, so on SnapStart (or any
+ * CRaC JVM) the warmed state is captured in the snapshot. Before the
+ * checkpoint it drops caches that must not outlive it, and after restore it
+ * re-establishes the network state, which is never carried over.
+ */
+@ApplicationScoped
+public class StartupPrimer implements Resource {
+
+    private static final Logger logger = Logger.getLogger(StartupPrimer.class);
+
+    @Inject
+    FileService fileService;
+
+    @Inject
+    PresignService presignService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "file-handler.priming.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "file-handler.priming.touch-bucket", defaultValue = "false")
+    boolean touchBucket;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        prime();
+        primeNetwork();
+        Core.getGlobalContext().register(this);
+        logger.infof("Startup priming finished in %d ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        presignService.clearCache();
+        fileService.resetTransientState();
+        logger.info("Cleared presign and index caches before checkpoint");
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        primeNetwork();
+    }
+
+    private void prime() {
+        try {
+            fileService.warmUp();
+
+            FileResponse file = new FileResponse("warmup", "warmup.pdf", "application/pdf",
+                    "users/warmup/warmup_warmup.pdf", 1L, "1970-01-01T00:00:00Z");
+            objectMapper.writeValueAsBytes(ApiResponse.success(new FilePage(List.of(file), "cursor")));
+            objectMapper.writeValueAsBytes(new FileIndexEntry());
+
+            FileResponseWithContent content = new FileResponseWithContent("warmup", "warmup.pdf", "application/pdf",
+                    "users/warmup/warmup_warmup.pdf", 1L, "1970-01-01T00:00:00Z",
+                    new ByteArrayInputStream(new byte[] { 1 }));
+            objectMapper.writeValueAsBytes(new FileCollectionResponseWithContent("warmup", List.of(content), null));
+        } catch (Exception e) {
+            // Priming is an optimization; the first request pays the cost instead
+            logger.warnf("Startup priming failed: %s", e.getMessage());
+        }
+    }
+
+    private void primeNetwork() {
+        if (!touchBucket) {
+            return;
+        }
+        try {
+            fileService.touchStorage();
+        } catch (Exception e) {
+            logger.warnf("Could not reach storage during priming: %s", e.getMessage());
+        }
+    }
+}
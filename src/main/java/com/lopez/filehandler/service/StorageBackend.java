@@ -0,0 +1,116 @@
+package com.lopez.filehandler.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import com.lopez.filehandler.dto.DeleteFailure;
+
+/**
+ * The object store under {@link FileService}: a flat namespace of keys with
+ * byte bodies, listed in key order by prefix. Everything above it (file
+ * index, deduplication, bulk deletes, caching) is written against this
+ * interface, so the same service runs on S3 or on a local filesystem.
+ *
+ * Lookups of a missing key return null rather than throwing. Writes replace
+ * an existing object atomically: readers see either the old or the new body,
+ * never a partial one.
+ */
+interface StorageBackend {
+
+    /**
+     * Makes one cheap call that fails if the store is unreachable or not
+     * writable.
+     */
+    void check() throws IOException;
+
+    /**
+     * Runs the key mapping and request-building paths for the given key
+     * without touching the store, so their classes are loaded at startup.
+     */
+    void warmUp(String sampleKey);
+
+    /**
+     * Stores a small object in one write, with optional user metadata.
+     */
+    UploadedObject put(String key, byte[] data, String contentType, Map<String, String> metadata) throws IOException;
+
+    /**
+     * Stores the object only if the key is free.
+     *
+     * @return null if an object already exists under the key
+     */
+    UploadedObject putIfAbsent(String key, byte[] data, String contentType) throws IOException;
+
+    /**
+     * Uploads an in-memory payload of any size.
+     */
+    UploadedObject upload(String key, String contentType, byte[] data) throws IOException;
+
+    /**
+     * Returns a stream that stores whatever is written to it under the key.
+     */
+    UploadStream openUpload(String key, String contentType) throws IOException;
+
+    /**
+     * Uploads a stream of unknown length, discarding the partial object if
+     * reading or writing fails.
+     */
+    default UploadedObject upload(String key, String contentType, InputStream in) throws IOException {
+        UploadStream out = openUpload(key, contentType);
+        try {
+            in.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        }
+        out.close();
+        return out.result();
+    }
+
+    /**
+     * Opens the body, or the given range of it when {@code range} is not null,
+     * without reading it. The caller must close the returned content.
+     */
+    ObjectContent get(String key, ByteRange range) throws IOException;
+
+    /**
+     * Reads a small object fully, or returns null if it does not exist.
+     */
+    byte[] getBytes(String key) throws IOException;
+
+    /**
+     * Returns size, ETag, content type and metadata, or null if the object
+     * does not exist.
+     */
+    StoredObject stat(String key) throws IOException;
+
+    /**
+     * Lists up to {@code maxKeys} objects under the prefix, in key order,
+     * starting after the position encoded in the cursor.
+     */
+    ObjectPage list(String prefix, int maxKeys, String cursor) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Deletes up to {@link BulkDeleter#MAX_KEYS_PER_REQUEST} keys, reporting
+     * the ones that could not be deleted. Missing keys count as deleted.
+     */
+    List<DeleteFailure> deleteBatch(List<String> keys) throws IOException;
+
+    /**
+     * Whether clients can be sent to the store directly with a
+     * {@link #presignGet} URL.
+     */
+    boolean supportsPresignedUrls();
+
+    /**
+     * A time-limited URL that downloads the object with the given filename
+     * and content type.
+     *
+     * @throws UnsupportedOperationException if {@link #supportsPresignedUrls()} is false
+     */
+    String presignGet(String key, String fileName, String contentType);
+}
@@ -0,0 +1,44 @@
+package com.lopez.filehandler.service;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * What a storage backend knows about one object. Listings only fill in the
+ * key, size, ETag and last-modified time; {@link StorageBackend#stat} also
+ * returns the content type and user metadata.
+ */
+class StoredObject {
+    private final String key;
+    private final long size;
+    private final String etag;
+    private final Instant lastModified;
+    private final String contentType;
+    private final Map<String, String> metadata;
+
+    StoredObject(String key, long size, String etag, Instant lastModified) {
+        this(key, size, etag, lastModified, null, Map.of());
+    }
+
+    StoredObject(String key, long size, String etag, Instant lastModified, String contentType,
+            Map<String, String> metadata) {
+        this.key = key;
+        this.size = size;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+        this.metadata = metadata;
+    }
+
+    String getKey() { return key; }
+
+    long getSize() { return size; }
+
+    String getEtag() { return etag; }
+
+    Instant getLastModified() { return lastModified; }
+
+    String getContentType() { return contentType; }
+
+    Map<String, String> getMetadata() { return metadata; }
+}
@@ -0,0 +1,23 @@
+package com.lopez.filehandler.service;
+
+import java.io.OutputStream;
+
+/**
+ * A stream that stores whatever is written to it under one key. Closing it
+ * commits the object; {@link #abort()} discards it instead, and nothing
+ * becomes visible under the key.
+ */
+abstract class UploadStream extends OutputStream {
+
+    /**
+     * Discards everything written so far.
+     */
+    abstract void abort();
+
+    /**
+     * What was stored, once the stream has been closed.
+     */
+    abstract UploadedObject result();
+
+    abstract long bytesWritten();
+}
@@ -0,0 +1,22 @@
+package com.lopez.filehandler.service;
+
+/**
+ * What the storage backend reported back for an object we wrote.
+ */
+class UploadedObject {
+    private final String key;
+    private final long size;
+    private final String etag;
+
+    UploadedObject(String key, long size, String etag) {
+        this.key = key;
+        this.size = size;
+        this.etag = etag;
+    }
+
+    String getKey() { return key; }
+
+    long getSize() { return size; }
+
+    String getEtag() { return etag; }
+}
@@ -0,0 +1,63 @@
+package com.lopez.filehandler.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimitTest {
+
+    static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void growsWhileLatencyStaysAtBaselineAndTheLimitIsUsed() {
+        AdaptiveLimit limit = new AdaptiveLimit(64, 8, 128, 1000);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample("GetObject", 10 * MS, false, limit.get(), i * MS);
+        }
+        assertEquals(128, limit.get());
+    }
+
+    @Test
+    void staysPutWhileMostlyIdle() {
+        AdaptiveLimit limit = new AdaptiveLimit(64, 8, 128, 1000);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample("GetObject", 10 * MS, false, 4, i * MS);
+        }
+        assertEquals(64, limit.get());
+    }
+
+    @Test
+    void shrinksAsLatencyRisesAboveBaseline() {
+        AdaptiveLimit limit = new AdaptiveLimit(64, 8, 128, 1000);
+        limit.onSample("GetObject", 10 * MS, false, 64, 0);
+        for (int i = 1; i < 100; i++) {
+            limit.onSample("GetObject", 30 * MS, false, 64, i * MS);
+        }
+        assertTrue(limit.get() < 32, "limit " + limit.get());
+        assertTrue(limit.get() >= 8, "limit " + limit.get());
+    }
+
+    @Test
+    void baselinesArePerOperation() {
+        AdaptiveLimit limit = new AdaptiveLimit(64, 8, 128, 1000);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample("GetObject", 10 * MS, false, 0, i * MS);
+            limit.onSample("ListObjectsV2", 80 * MS, false, 0, i * MS);
+        }
+        assertEquals(64, limit.get());
+    }
+
+    @Test
+    void overloadCutsMultiplicativelyOncePerRoundTrip() {
+        AdaptiveLimit limit = new AdaptiveLimit(100, 8, 128, 1000);
+        limit.onSample("PutObject", 50 * MS, true, 100, 0);
+        assertEquals(90, limit.get());
+        limit.onSample("PutObject", 50 * MS, true, 100, 10 * MS);
+        assertEquals(90, limit.get());
+        limit.onSample("PutObject", 50 * MS, true, 100, 60 * MS);
+        assertEquals(81, limit.get());
+    }
+}
@@ -0,0 +1,38 @@
+package com.lopez.filehandler.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketsTest {
+
+    static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void allowsABurstThenRefillsAtTheRate() {
+        TokenBuckets buckets = new TokenBuckets(10, 10, 100);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, buckets.tryTake("u1", 1, 0));
+        }
+        assertEquals(100 * MS, buckets.tryTake("u1", 1, 0));
+        assertEquals(0, buckets.tryTake("u1", 1, 100 * MS));
+        assertEquals(0, buckets.tryTake("u2", 1, 100 * MS));
+    }
+
+    @Test
+    void costAboveCapacityRunsFromAFullBucketAndLeavesDebt() {
+        TokenBuckets buckets = new TokenBuckets(10, 10, 100);
+        assertEquals(0, buckets.tryTake("u1", 25, 0));
+        assertEquals(1600 * MS, buckets.tryTake("u1", 1, 0));
+    }
+
+    @Test
+    void refundGivesTokensBack() {
+        TokenBuckets buckets = new TokenBuckets(10, 10, 100);
+        assertEquals(0, buckets.tryTake("u1", 10, 0));
+        buckets.refund("u1", 10);
+        assertEquals(0, buckets.tryTake("u1", 10, 0));
+    }
+}
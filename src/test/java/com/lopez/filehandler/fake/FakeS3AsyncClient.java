@@ -0,0 +1,126 @@
+package com.lopez.filehandler.fake;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+/**
+ * The async face of {@link FakeS3Client}, sharing its objects, latency and
+ * error rate. The latency is waited out on a timer instead of a sleeping
+ * thread, as the real async client waits on a socket, so load tests see
+ * the same difference between the two clients as production does. Covers
+ * the operations {@code ReactiveFileService} uses.
+ */
+@Alternative
+@ApplicationScoped
+public class FakeS3AsyncClient implements S3AsyncClient {
+
+    // Completions run on these threads, as they run on the SDK's completion executor
+    private final ScheduledExecutorService timer = Executors.newScheduledThreadPool(
+            Runtime.getRuntime().availableProcessors(), FakeS3AsyncClient::daemon);
+
+    @Inject
+    FakeS3Client s3;
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResponse> putObject(PutObjectRequest request, AsyncRequestBody body) {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        return body.subscribe(buffer -> {
+                    byte[] chunk = new byte[buffer.remaining()];
+                    buffer.get(chunk);
+                    data.writeBytes(chunk);
+                })
+                .thenCompose(done -> later(() -> s3.putObject(request, RequestBody.fromBytes(data.toByteArray()))));
+    }
+
+    @Override
+    public <ReturnT> CompletableFuture<ReturnT> getObject(GetObjectRequest request,
+            AsyncResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        CompletableFuture<ReturnT> result = transformer.prepare();
+        later(() -> s3.getObject(request, ResponseTransformer.toBytes()))
+                .whenComplete((bytes, error) -> {
+                    if (error != null) {
+                        transformer.exceptionOccurred(error);
+                        result.completeExceptionally(error);
+                        return;
+                    }
+                    transformer.onResponse(bytes.response());
+                    transformer.onStream(AsyncRequestBody.fromByteBuffer(bytes.asByteBuffer()));
+                });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<HeadObjectResponse> headObject(HeadObjectRequest request) {
+        return later(() -> s3.headObject(request));
+    }
+
+    @Override
+    public CompletableFuture<ListObjectsV2Response> listObjectsV2(ListObjectsV2Request request) {
+        return later(() -> s3.listObjectsV2(request));
+    }
+
+    @Override
+    public CompletableFuture<DeleteObjectsResponse> deleteObjects(DeleteObjectsRequest request) {
+        return later(() -> s3.deleteObjects(request));
+    }
+
+    /**
+     * Completes with the call's result once a latency sample has passed,
+     * without holding a thread in the meantime.
+     */
+    private <T> CompletableFuture<T> later(Supplier<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        timer.schedule(() -> {
+            try {
+                future.complete(s3.withoutDelay(call));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, s3.nextDelayMillis(), TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private static Thread daemon(Runnable runnable) {
+        Thread thread = new Thread(runnable, "fake-s3-async");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
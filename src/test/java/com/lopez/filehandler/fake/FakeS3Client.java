@@ -0,0 +1,406 @@
+package com.lopez.filehandler.fake;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadBucketResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.StorageClass;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * An in-memory S3 that stands in for the real client in offline tests. It
+ * is enabled per test profile through
+ * {@link io.quarkus.test.junit.QuarkusTestProfile#getEnabledAlternatives()}
+ * and covers the operations the service uses: object put/get/head/delete
+ * with ranges and {@code If-None-Match: *}, paginated ListObjectsV2,
+ * DeleteObjects and multipart uploads. The bucket name is ignored.
+ *
+ * Every call first waits {@code fake-s3.latency} (plus up to
+ * {@code fake-s3.jitter}) and then fails with a 503 SlowDown with
+ * probability {@code fake-s3.error-rate}. Both can be changed at runtime.
+ */
+@Alternative
+@ApplicationScoped
+public class FakeS3Client implements S3Client {
+
+    private final NavigableMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> delayed = ThreadLocal.withInitial(() -> true);
+
+    @ConfigProperty(name = "fake-s3.latency", defaultValue = "0ms")
+    volatile Duration latency = Duration.ZERO;
+
+    @ConfigProperty(name = "fake-s3.jitter", defaultValue = "0ms")
+    volatile Duration jitter = Duration.ZERO;
+
+    @ConfigProperty(name = "fake-s3.error-rate", defaultValue = "0")
+    volatile double errorRate;
+
+    public void setLatency(Duration latency, Duration jitter) {
+        this.latency = latency;
+        this.jitter = jitter;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public int objectCount() {
+        return objects.size();
+    }
+
+    public void clear() {
+        objects.clear();
+        uploads.clear();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public HeadBucketResponse headBucket(HeadBucketRequest request) {
+        simulate();
+        return HeadBucketResponse.builder().build();
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        simulate();
+        byte[] data = read(body);
+        StoredObject stored = new StoredObject(data, request.contentType(), request.metadata(),
+                request.storageClassAsString());
+        if ("*".equals(request.ifNoneMatch())) {
+            if (objects.putIfAbsent(request.key(), stored) != null) {
+                throw error(412, "PreconditionFailed", "At least one of the pre-conditions did not hold");
+            }
+        } else {
+            objects.put(request.key(), stored);
+        }
+        return PutObjectResponse.builder().eTag(stored.etag).build();
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObject(GetObjectRequest request,
+            ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        simulate();
+        StoredObject stored = find(request.key());
+
+        int start = 0;
+        int end = stored.data.length - 1;
+        String contentRange = null;
+        if (request.range() != null) {
+            String[] bounds = request.range().substring("bytes=".length()).split("-");
+            start = Integer.parseInt(bounds[0]);
+            end = Math.min(end, Integer.parseInt(bounds[1]));
+            if (start > end) {
+                throw error(416, "InvalidRange", "The requested range is not satisfiable");
+            }
+            contentRange = "bytes " + start + "-" + end + "/" + stored.data.length;
+        }
+
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentLength((long) (end - start + 1))
+                .contentRange(contentRange)
+                .contentType(stored.contentType)
+                .eTag(stored.etag)
+                .lastModified(stored.lastModified)
+                .metadata(stored.metadata)
+                .build();
+        try {
+            InputStream in = new ByteArrayInputStream(stored.data, start, end - start + 1);
+            return transformer.transform(response, AbortableInputStream.create(in));
+        } catch (Exception e) {
+            throw new IllegalStateException("Response transformer failed", e);
+        }
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        simulate();
+        StoredObject stored = find(request.key());
+        return HeadObjectResponse.builder()
+                .contentLength((long) stored.data.length)
+                .contentType(stored.contentType)
+                .eTag(stored.etag)
+                .lastModified(stored.lastModified)
+                .metadata(stored.metadata)
+                .build();
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+        simulate();
+        String prefix = request.prefix() != null ? request.prefix() : "";
+        int maxKeys = request.maxKeys() != null ? Math.min(request.maxKeys(), 1000) : 1000;
+
+        NavigableMap<String, StoredObject> range = objects.tailMap(prefix, true);
+        if (request.continuationToken() != null) {
+            range = range.tailMap(request.continuationToken(), false);
+        } else if (request.startAfter() != null) {
+            range = range.tailMap(request.startAfter(), false);
+        }
+
+        List<S3Object> contents = new ArrayList<>();
+        boolean truncated = false;
+        for (Map.Entry<String, StoredObject> entry : range.entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (contents.size() == maxKeys) {
+                truncated = true;
+                break;
+            }
+            StoredObject stored = entry.getValue();
+            contents.add(S3Object.builder()
+                    .key(entry.getKey())
+                    .size((long) stored.data.length)
+                    .eTag(stored.etag)
+                    .lastModified(stored.lastModified)
+                    .storageClass(stored.storageClass)
+                    .build());
+        }
+
+        return ListObjectsV2Response.builder()
+                .contents(contents)
+                .keyCount(contents.size())
+                .isTruncated(truncated)
+                .nextContinuationToken(truncated ? contents.get(contents.size() - 1).key() : null)
+                .build();
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        simulate();
+        objects.remove(request.key());
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+        simulate();
+        for (ObjectIdentifier identifier : request.delete().objects()) {
+            objects.remove(identifier.key());
+        }
+        return DeleteObjectsResponse.builder().build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        simulate();
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentSkipListMap<>());
+        return CreateMultipartUploadResponse.builder()
+                .bucket(request.bucket())
+                .key(request.key())
+                .uploadId(uploadId)
+                .build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        simulate();
+        byte[] data = read(body);
+        upload(request.uploadId()).put(request.partNumber(), data);
+        return UploadPartResponse.builder().eTag(etag(data)).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        simulate();
+        NavigableMap<Integer, byte[]> parts = upload(request.uploadId());
+        int size = 0;
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            size += parts.get(part.partNumber()).length;
+        }
+        byte[] data = new byte[size];
+        int offset = 0;
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            byte[] partData = parts.get(part.partNumber());
+            System.arraycopy(partData, 0, data, offset, partData.length);
+            offset += partData.length;
+        }
+        uploads.remove(request.uploadId());
+
+        StoredObject stored = new StoredObject(data, null, Map.of(), null);
+        objects.put(request.key(), stored);
+        return CompleteMultipartUploadResponse.builder()
+                .bucket(request.bucket())
+                .key(request.key())
+                .eTag(stored.etag)
+                .build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        simulate();
+        uploads.remove(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    /**
+     * Draws one latency sample, for clients that wait without blocking a
+     * thread and then call {@link #withoutDelay}.
+     */
+    public long nextDelayMillis() {
+        long delayMillis = latency.toMillis();
+        long jitterMillis = jitter.toMillis();
+        if (jitterMillis > 0) {
+            delayMillis += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+        }
+        return delayMillis;
+    }
+
+    /**
+     * Runs calls on this client without the simulated latency; the error
+     * rate still applies.
+     */
+    public <T> T withoutDelay(Supplier<T> call) {
+        delayed.set(false);
+        try {
+            return call.get();
+        } finally {
+            delayed.remove();
+        }
+    }
+
+    private void simulate() {
+        long delayMillis = delayed.get() ? nextDelayMillis() : 0;
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            throw error(503, "SlowDown", "Please reduce your request rate.");
+        }
+    }
+
+    private StoredObject find(String key) {
+        StoredObject stored = objects.get(key);
+        if (stored == null) {
+            throw NoSuchKeyException.builder()
+                    .statusCode(404)
+                    .awsErrorDetails(AwsErrorDetails.builder()
+                            .errorCode("NoSuchKey")
+                            .errorMessage("The specified key does not exist.")
+                            .build())
+                    .build();
+        }
+        return stored;
+    }
+
+    private NavigableMap<Integer, byte[]> upload(String uploadId) {
+        NavigableMap<Integer, byte[]> parts = uploads.get(uploadId);
+        if (parts == null) {
+            throw NoSuchUploadException.builder()
+                    .statusCode(404)
+                    .awsErrorDetails(AwsErrorDetails.builder()
+                            .errorCode("NoSuchUpload")
+                            .errorMessage("The specified upload does not exist.")
+                            .build())
+                    .build();
+        }
+        return parts;
+    }
+
+    private static S3Exception error(int status, String code, String message) {
+        return (S3Exception) S3Exception.builder()
+                .statusCode(status)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(code).errorMessage(message).build())
+                .build();
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etag(byte[] data) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class StoredObject {
+        final byte[] data;
+        final String contentType;
+        final Map<String, String> metadata;
+        final String storageClass;
+        final String etag;
+        final Instant lastModified;
+
+        StoredObject(byte[] data, String contentType, Map<String, String> metadata, String storageClass) {
+            this.data = data;
+            this.contentType = contentType;
+            this.metadata = metadata != null ? new HashMap<>(metadata) : Map.of();
+            this.storageClass = storageClass != null ? storageClass : StorageClass.STANDARD.toString();
+            this.etag = etag(data);
+            this.lastModified = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.lopez.filehandler.fake;
+
+import java.util.Map;
+import java.util.Set;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+/**
+ * Runs the application against {@link FakeS3Client} and {@link FakeS3AsyncClient}
+ * instead of LocalStack, so tests need neither Docker nor network access. The
+ * download cache is turned off so every download reaches the (fake) S3 client.
+ */
+public class FakeS3Profile implements QuarkusTestProfile {
+
+    @Override
+    public Set<Class<?>> getEnabledAlternatives() {
+        return Set.of(FakeS3Client.class, FakeS3AsyncClient.class);
+    }
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of(
+                "quarkus.s3.devservices.enabled", "false",
+                // Presigning and startup priming still sign requests locally
+                "quarkus.s3.aws.credentials.type", "static",
+                "quarkus.s3.aws.credentials.static-provider.access-key-id", "test",
+                "quarkus.s3.aws.credentials.static-provider.secret-access-key", "test",
+                "file-handler.cache.heap.max-bytes", "0",
+                "file-handler.cache.disk.max-bytes", "0",
+                // Load tests measure the endpoints, so their bursts must not be turned into 429s
+                "file-handler.admission.enabled", "false",
+                "quarkus.log.level", "INFO",
+                "quarkus.log.category.\"com.lopez\".level", "INFO");
+    }
+}
@@ -0,0 +1,163 @@
+package com.lopez.filehandler.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lopez.filehandler.fake.FakeS3Client;
+import com.lopez.filehandler.fake.FakeS3Profile;
+import com.lopez.filehandler.load.LoadDriver.Result;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+
+/**
+ * Compares the blocking endpoints with their non-blocking {@code /file/async}
+ * counterparts as client concurrency grows, against the in-memory S3 with a
+ * fixed latency and a small worker pool. A blocking request holds a worker
+ * thread for its whole S3 wait, so its throughput levels off near
+ * {@code workers / latency} while latency grows with the queue; a
+ * non-blocking request holds no thread and keeps scaling. Excluded from the
+ * default test run; run with {@code mvn -Pload test}.
+ *
+ * Tuned with system properties: {@code load.scaling.levels} (comma separated
+ * client counts), {@code load.scaling.requests-per-client},
+ * {@code load.scaling.worker-threads}, {@code load.s3-latency-ms} and
+ * {@code load.file-size}.
+ */
+@QuarkusTest
+@TestProfile(ConcurrencyScalingLoadTest.Profile.class)
+@Tag("load")
+class ConcurrencyScalingLoadTest {
+
+    static final int[] LEVELS = Arrays.stream(System.getProperty("load.scaling.levels", "16,64,256").split(","))
+            .mapToInt(level -> Integer.parseInt(level.trim()))
+            .toArray();
+    static final int REQUESTS_PER_CLIENT = Integer.getInteger("load.scaling.requests-per-client", 20);
+    static final int WORKER_THREADS = Integer.getInteger("load.scaling.worker-threads", 32);
+    static final long S3_LATENCY_MS = Long.getLong("load.s3-latency-ms", 50);
+    static final int FILE_SIZE = Integer.getInteger("load.file-size", 64 * 1024);
+
+    static final int USERS = 10;
+    static final int FILES = 100;
+    static final int WARMUP = 500;
+
+    public static class Profile extends FakeS3Profile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            Map<String, String> config = new HashMap<>(super.getConfigOverrides());
+            config.put("quarkus.thread-pool.max-threads", String.valueOf(WORKER_THREADS));
+            return config;
+        }
+    }
+
+    @Inject
+    FakeS3Client s3;
+
+    @TestHTTPResource("/file")
+    URI fileUri;
+
+    final LoadDriver driver = new LoadDriver(HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build());
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void blockingAgainstNonBlocking() throws Exception {
+        byte[] payload = new byte[FILE_SIZE];
+        new Random(42).nextBytes(payload);
+        Queue<String> uploaded = new ConcurrentLinkedQueue<>();
+
+        s3.clear();
+        s3.setLatency(Duration.ZERO, Duration.ZERO);
+        s3.setErrorRate(0);
+        driver.run("seed", 8, FILES, i -> upload("user-" + (i % USERS), i, payload),
+                response -> uploaded.add(fileId(response)));
+        List<String> fileIds = new ArrayList<>(uploaded);
+
+        // Loads classes, fills the index cache and opens connections on both paths
+        driver.run("warmup", 16, WARMUP, i -> get(fileUri + (i % 2 == 0 ? "/" : "/async/")
+                + fileIds.get(i % fileIds.size())), response -> { });
+
+        s3.setLatency(Duration.ofMillis(S3_LATENCY_MS), Duration.ZERO);
+        Map<Integer, List<Result>> results = new LinkedHashMap<>();
+        for (int clients : LEVELS) {
+            int requests = clients * REQUESTS_PER_CLIENT;
+            List<Result> level = new ArrayList<>();
+            level.add(driver.run("download", clients, requests,
+                    i -> get(fileUri + "/" + fileIds.get(i % fileIds.size())), response -> { }));
+            level.add(driver.run("download async", clients, requests,
+                    i -> get(fileUri + "/async/" + fileIds.get(i % fileIds.size())), response -> { }));
+            level.add(driver.run("listing", clients, requests,
+                    i -> get(fileUri + "/user/user-" + (i % USERS) + "?limit=100"), response -> { }));
+            level.add(driver.run("listing async", clients, requests,
+                    i -> get(fileUri + "/async/user/user-" + (i % USERS) + "?limit=100"), response -> { }));
+            results.put(clients, level);
+        }
+        s3.setLatency(Duration.ZERO, Duration.ZERO);
+
+        report(results);
+
+        for (List<Result> level : results.values()) {
+            for (Result result : level) {
+                assertEquals(0, result.errors, result.name + " had failed requests");
+            }
+        }
+    }
+
+    private HttpRequest upload(String userId, int i, byte[] payload) {
+        return HttpRequest.newBuilder(URI.create(fileUri + "/" + userId + "/document-" + i + ".pdf"))
+                .header("Content-Type", "application/octet-stream")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+    }
+
+    private HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private String fileId(HttpResponse<byte[]> response) {
+        try {
+            return objectMapper.readTree(response.body()).path("data").path("fileId").asText();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unexpected upload response", e);
+        }
+    }
+
+    private static void report(Map<Integer, List<Result>> results) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%nConcurrency scaling: worker threads=%d, S3 latency=%d ms, file size=%d B%n",
+                WORKER_THREADS, S3_LATENCY_MS, FILE_SIZE));
+        table.append(String.format("%8s %-15s %8s %7s %10s %9s %9s %10s%n",
+                "clients", "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "heap MB"));
+        results.forEach((clients, level) -> {
+            for (Result r : level) {
+                table.append(String.format("%8d %-15s %8d %7d %10.1f %9.2f %9.2f %10.1f%n",
+                        clients, r.name, r.requests, r.errors, r.throughput(),
+                        r.p50Nanos / 1e6, r.p99Nanos / 1e6, r.peakHeapBytes / (1024.0 * 1024.0)));
+            }
+        });
+        System.out.println(table);
+    }
+}
@@ -0,0 +1,166 @@
+package com.lopez.filehandler.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lopez.filehandler.fake.FakeS3Client;
+import com.lopez.filehandler.fake.FakeS3Profile;
+import com.lopez.filehandler.load.LoadDriver.Result;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Drives the REST endpoints at a fixed concurrency against the in-memory
+ * S3 and reports p50/p99 latency, throughput and peak heap for upload,
+ * download, listing and bulk delete. Excluded from the default test run;
+ * run with {@code mvn -Pload test}.
+ *
+ * Tuned with system properties: {@code load.concurrency}, {@code load.requests},
+ * {@code load.file-size}, {@code load.warmup}, {@code load.s3-latency-ms},
+ * {@code load.s3-jitter-ms} and {@code load.s3-error-rate}. With an error
+ * rate above zero, failed requests are reported instead of failing the test.
+ */
+@QuarkusTest
+@TestProfile(FakeS3Profile.class)
+@Tag("load")
+class FileResourceLoadTest {
+
+    static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+    static final int REQUESTS = Integer.getInteger("load.requests", 2000);
+    static final int FILE_SIZE = Integer.getInteger("load.file-size", 64 * 1024);
+    static final int WARMUP = Integer.getInteger("load.warmup", 200);
+    static final long S3_LATENCY_MS = Long.getLong("load.s3-latency-ms", 0);
+    static final long S3_JITTER_MS = Long.getLong("load.s3-jitter-ms", 0);
+    static final double S3_ERROR_RATE = Double.parseDouble(System.getProperty("load.s3-error-rate", "0"));
+
+    static final int BULK_USERS = 50;
+    static final int FILES_PER_BULK_USER = 200;
+
+    @Inject
+    FakeS3Client s3;
+
+    @TestHTTPResource("/file")
+    URI fileUri;
+
+    final LoadDriver driver = new LoadDriver(HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build());
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void endpointsUnderLoad() throws Exception {
+        byte[] payload = new byte[FILE_SIZE];
+        new Random(42).nextBytes(payload);
+        Queue<String> uploaded = new ConcurrentLinkedQueue<>();
+
+        s3.clear();
+        run("warmup", WARMUP, i -> upload("warmup", i, payload), response -> { });
+
+        s3.setLatency(Duration.ofMillis(S3_LATENCY_MS), Duration.ofMillis(S3_JITTER_MS));
+        s3.setErrorRate(S3_ERROR_RATE);
+
+        List<Result> results = new ArrayList<>();
+        results.add(run("upload", REQUESTS, i -> upload("user-" + (i % CONCURRENCY), i, payload),
+                response -> uploaded.add(fileId(response))));
+
+        List<String> fileIds = new ArrayList<>(uploaded);
+        results.add(run("download", REQUESTS,
+                i -> get(fileUri + "/" + fileIds.get(i % fileIds.size())), response -> { }));
+
+        results.add(run("listing", REQUESTS,
+                i -> get(fileUri + "/user/user-" + (i % CONCURRENCY) + "?limit=100"), response -> { }));
+
+        s3.setErrorRate(0);
+        seedBulkUsers();
+        s3.setErrorRate(S3_ERROR_RATE);
+        results.add(run("bulk delete", BULK_USERS,
+                i -> HttpRequest.newBuilder(URI.create(fileUri + "/user/bulk-" + i)).DELETE().build(),
+                response -> { }));
+
+        report(results);
+
+        if (S3_ERROR_RATE == 0) {
+            for (Result result : results) {
+                assertEquals(0, result.errors, result.name + " had failed requests");
+            }
+        }
+    }
+
+    private HttpRequest upload(String userId, int i, byte[] payload) {
+        return HttpRequest.newBuilder(URI.create(fileUri + "/" + userId + "/document-" + i + ".pdf"))
+                .header("Content-Type", "application/octet-stream")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+    }
+
+    private HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private String fileId(HttpResponse<byte[]> response) {
+        try {
+            return objectMapper.readTree(response.body()).path("data").path("fileId").asText();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unexpected upload response", e);
+        }
+    }
+
+    /**
+     * Bulk delete removes every file of a user, so each request needs its
+     * own user. Files are written straight into the fake, without index
+     * entries, which the delete path tolerates.
+     */
+    private void seedBulkUsers() {
+        for (int user = 0; user < BULK_USERS; user++) {
+            for (int file = 0; file < FILES_PER_BULK_USER; file++) {
+                s3.putObject(PutObjectRequest.builder()
+                        .bucket("load")
+                        .key("users/bulk-" + user + "/" + UUID.randomUUID() + "_document-" + file + ".pdf")
+                        .build(),
+                        RequestBody.fromBytes(new byte[1024]));
+            }
+        }
+    }
+
+    private Result run(String name, int requests, IntFunction<HttpRequest> request,
+            Consumer<HttpResponse<byte[]>> onSuccess) throws Exception {
+        return driver.run(name, CONCURRENCY, requests, request, onSuccess);
+    }
+
+    private static void report(List<Result> results) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%nLoad test: concurrency=%d, file size=%d B, S3 latency=%d+%d ms, "
+                + "S3 error rate=%.3f%n", CONCURRENCY, FILE_SIZE, S3_LATENCY_MS, S3_JITTER_MS, S3_ERROR_RATE));
+        table.append(String.format("%-12s %8s %7s %10s %9s %9s %9s %10s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms", "heap MB"));
+        for (Result r : results) {
+            table.append(String.format("%-12s %8d %7d %10.1f %9.2f %9.2f %9.2f %10.1f%n",
+                    r.name, r.requests, r.errors, r.throughput(),
+                    r.p50Nanos / 1e6, r.p99Nanos / 1e6, r.maxNanos / 1e6, r.peakHeapBytes / (1024.0 * 1024.0)));
+        }
+        System.out.println(table);
+    }
+}
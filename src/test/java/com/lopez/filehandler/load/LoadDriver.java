@@ -0,0 +1,129 @@
+package com.lopez.filehandler.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Sends a fixed number of requests from a fixed number of client threads,
+ * each sending its next request as soon as the previous one completes, and
+ * records latency, throughput and peak heap. Any non-2xx status or I/O
+ * failure counts as an error.
+ */
+class LoadDriver {
+
+    private final HttpClient http;
+
+    LoadDriver(HttpClient http) {
+        this.http = http;
+    }
+
+    Result run(String name, int concurrency, int requests, IntFunction<HttpRequest> request,
+            Consumer<HttpResponse<byte[]>> onSuccess) throws Exception {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int worker = 0; worker < concurrency; worker++) {
+                running.add(workers.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < requests) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = http.send(request.apply(i),
+                                    HttpResponse.BodyHandlers.ofByteArray());
+                            if (response.statusCode() / 100 == 2) {
+                                onSuccess.accept(response);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        Arrays.sort(latencies);
+        return new Result(name, requests, errors.get(), elapsed, percentile(latencies, 0.50),
+                percentile(latencies, 0.99), latencies[latencies.length - 1], peakHeap);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    static class Result {
+        final String name;
+        final int requests;
+        final long errors;
+        final long elapsedNanos;
+        final long p50Nanos;
+        final long p99Nanos;
+        final long maxNanos;
+        final long peakHeapBytes;
+
+        Result(String name, int requests, long errors, long elapsedNanos, long p50Nanos, long p99Nanos,
+                long maxNanos, long peakHeapBytes) {
+            this.name = name;
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        double throughput() {
+            return requests / (elapsedNanos / 1e9);
+        }
+    }
+}
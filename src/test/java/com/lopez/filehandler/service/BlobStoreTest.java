@@ -0,0 +1,132 @@
+package com.lopez.filehandler.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lopez.filehandler.dto.BlobIndexEntry;
+
+class BlobStoreTest {
+
+    static final byte[] CONTENT = "same bytes".getBytes(StandardCharsets.UTF_8);
+    static final String HASH = BlobStore.hex(BlobStore.sha256().digest(CONTENT));
+
+    @TempDir
+    Path root;
+
+    FileSystemStorageBackend storage;
+    BlobStore blobs;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileSystemStorageBackend(root, new ObjectMapper(), false);
+        blobs = new BlobStore(storage, new ObjectMapper());
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void secondUploadOfTheSameContentSharesTheBlob() throws Exception {
+        BlobIndexEntry first = blobs.commit(HASH, upload(), "u1", "f1");
+        UploadedObject duplicate = upload();
+        BlobIndexEntry second = blobs.commit(HASH, duplicate, "u2", "f2");
+
+        assertEquals(first.getBlobKey(), second.getBlobKey());
+        assertNull(storage.stat(duplicate.getKey()));
+        assertArrayEquals(CONTENT, storage.getBytes(first.getBlobKey()));
+        assertEquals(first.getBlobKey(), blobs.acquire(HASH, "u3", "f3").getBlobKey());
+    }
+
+    @Test
+    void releasingOneOfTwoReferencesKeepsTheBlob() throws Exception {
+        BlobIndexEntry blob = blobs.commit(HASH, upload(), "u1", "f1");
+        blobs.commit(HASH, upload(), "u2", "f2");
+
+        assertFalse(blobs.release(blob.getBlobKey(), HASH, "u1", "f1"));
+
+        assertArrayEquals(CONTENT, storage.getBytes(blob.getBlobKey()));
+        assertNotNull(blobs.acquire(HASH, "u3", "f3"));
+    }
+
+    @Test
+    void releasingTheLastReferenceDeletesTheBlobAndItsHashEntry() throws Exception {
+        BlobIndexEntry blob = blobs.commit(HASH, upload(), "u1", "f1");
+        blobs.commit(HASH, upload(), "u2", "f2");
+
+        assertFalse(blobs.release(blob.getBlobKey(), HASH, "u1", "f1"));
+        assertTrue(blobs.release(blob.getBlobKey(), HASH, "u2", "f2"));
+
+        assertNull(storage.stat(blob.getBlobKey()));
+        assertNull(blobs.acquire(HASH, "u3", "f3"));
+    }
+
+    @Test
+    void ownedAcquireNeedsAnExistingReferenceOfTheUser() throws Exception {
+        blobs.commit(HASH, upload(), "u1", "f1");
+
+        assertNull(blobs.acquireOwned(HASH, "u2", "f2"));
+        assertNotNull(blobs.acquireOwned(HASH, "u1", "f3"));
+    }
+
+    /**
+     * Whichever order the two interleave in, the committed reference must
+     * point at bytes that still exist. The released blob may be kept when
+     * the release sees the commit's short-lived marker; that is allowed.
+     */
+    @Test
+    void commitRacingTheLastReleaseNeverLosesTheBlob() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            String oldFile = "old" + i;
+            String newFile = "new" + i;
+            BlobIndexEntry old = blobs.commit(HASH, upload(), "u1", oldFile);
+            UploadedObject fresh = upload();
+            CyclicBarrier start = new CyclicBarrier(2);
+
+            Future<Boolean> release = executor.submit(race(start,
+                    () -> blobs.release(old.getBlobKey(), HASH, "u1", oldFile)));
+            Future<BlobIndexEntry> commit = executor.submit(race(start,
+                    () -> blobs.commit(HASH, fresh, "u2", newFile)));
+
+            BlobIndexEntry committed = commit.get();
+            release.get();
+            assertArrayEquals(CONTENT, storage.getBytes(committed.getBlobKey()), "iteration " + i);
+
+            assertTrue(blobs.release(committed.getBlobKey(), HASH, "u2", newFile), "iteration " + i);
+            assertNull(storage.stat(committed.getBlobKey()));
+        }
+    }
+
+    private UploadedObject upload() throws Exception {
+        return storage.put(blobs.newBlobKey(), CONTENT, null, Map.of());
+    }
+
+    private static <T> Callable<T> race(CyclicBarrier start, Callable<T> task) {
+        return () -> {
+            start.await();
+            return task.call();
+        };
+    }
+}
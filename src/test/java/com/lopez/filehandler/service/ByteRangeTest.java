@@ -0,0 +1,62 @@
+package com.lopez.filehandler.service;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ByteRangeTest {
+
+    @Test
+    public void testSingleRanges() {
+        assertEquals(List.of(new ByteRange(0, 499)), ByteRange.parse("bytes=0-499", 1000));
+        assertEquals(List.of(new ByteRange(500, 999)), ByteRange.parse("bytes=500-", 1000));
+        assertEquals(List.of(new ByteRange(900, 999)), ByteRange.parse("bytes=-100", 1000));
+        assertEquals(List.of(new ByteRange(0, 999)), ByteRange.parse("bytes=-5000", 1000));
+    }
+
+    @Test
+    public void testRangesAreClampedToTheFile() {
+        assertEquals(List.of(new ByteRange(900, 999)), ByteRange.parse("bytes=900-5000", 1000));
+    }
+
+    @Test
+    public void testOverlappingAndAdjacentRangesAreMerged() {
+        assertEquals(List.of(new ByteRange(0, 199), new ByteRange(500, 599)),
+                ByteRange.parse("bytes=500-599, 100-199, 0-99, 150-160", 1000));
+    }
+
+    @Test
+    public void testUnsatisfiableRangesGiveEmptyList() {
+        assertTrue(ByteRange.parse("bytes=1000-1100", 1000).isEmpty());
+        assertTrue(ByteRange.parse("bytes=-0", 1000).isEmpty());
+        assertTrue(ByteRange.parse("bytes=0-10", 0).isEmpty());
+        assertEquals(List.of(new ByteRange(0, 9)), ByteRange.parse("bytes=2000-3000,0-9", 1000));
+    }
+
+    @Test
+    public void testInvalidHeadersAreIgnored() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("items=0-10", 1000));
+        assertNull(ByteRange.parse("bytes=10-5", 1000));
+        assertNull(ByteRange.parse("bytes=abc", 1000));
+        assertNull(ByteRange.parse("bytes=-", 1000));
+    }
+
+    @Test
+    public void testTooManyRangesAreIgnored() {
+        StringBuilder header = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= ByteRange.MAX_RANGES; i++) {
+            header.append(',').append(i * 10).append('-').append(i * 10);
+        }
+        assertNull(ByteRange.parse(header.toString(), 1000));
+    }
+
+    @Test
+    public void testContentRange() {
+        assertEquals("bytes 0-499/1000", new ByteRange(0, 499).toContentRange(1000));
+    }
+}
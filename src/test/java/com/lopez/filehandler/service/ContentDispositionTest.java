@@ -0,0 +1,31 @@
+package com.lopez.filehandler.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class ContentDispositionTest {
+
+    @Test
+    void plainNameIsUnchanged() {
+        assertEquals("attachment; filename=\"report.pdf\"; filename*=UTF-8''report.pdf",
+                ContentDisposition.attachment("report.pdf"));
+    }
+
+    @Test
+    void quotesAndBackslashesAreEscaped() {
+        assertEquals("a\\\"; filename=\\\"x.exe", ContentDisposition.quoted("a\"; filename=\"x.exe"));
+        assertEquals("a\\\\b", ContentDisposition.quoted("a\\b"));
+    }
+
+    @Test
+    void controlAndNonAsciiCharactersAreReplacedInTheFallback() {
+        assertEquals("r_sum_.pdf", ContentDisposition.quoted("r\u00e9sum\u00e9.pdf"));
+        assertEquals("a__b", ContentDisposition.quoted("a\r\nb"));
+    }
+
+    @Test
+    void extendedValueIsPercentEncodedUtf8() {
+        assertEquals("r%C3%A9sum%C3%A9%20%22v2%22.pdf", ContentDisposition.encoded("r\u00e9sum\u00e9 \"v2\".pdf"));
+    }
+}
@@ -0,0 +1,128 @@
+package com.lopez.filehandler.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class FileSystemStorageBackendTest {
+
+    @TempDir
+    Path root;
+
+    FileSystemStorageBackend storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileSystemStorageBackend(root, new ObjectMapper(), false);
+    }
+
+    @Test
+    void storesBodyAndMetadataTogether() throws Exception {
+        byte[] body = "hello world".getBytes(StandardCharsets.UTF_8);
+        UploadedObject put = storage.put("users/u1/id_a.pdf", body, "application/pdf", Map.of("blob-key", "b1"));
+
+        assertEquals("\"5eb63bbbe01eeed093cb22bb8f5acdc3\"", put.getEtag());
+        assertArrayEquals(body, storage.getBytes("users/u1/id_a.pdf"));
+
+        StoredObject stat = storage.stat("users/u1/id_a.pdf");
+        assertEquals(body.length, stat.getSize());
+        assertEquals(put.getEtag(), stat.getEtag());
+        assertEquals("application/pdf", stat.getContentType());
+        assertEquals(Map.of("blob-key", "b1"), stat.getMetadata());
+
+        ObjectContent range = storage.get("users/u1/id_a.pdf", new ByteRange(6, 20));
+        assertEquals(5, range.getLength());
+        try (InputStream in = range.getStream()) {
+            assertEquals("world", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        assertNull(storage.getBytes("users/u1/missing"));
+        assertNull(storage.stat("users/u1/missing"));
+    }
+
+    @Test
+    void putIfAbsentKeepsTheFirstWrite() throws Exception {
+        assertNotNull(storage.putIfAbsent("blobs/sha256/h.json", new byte[] { 1 }, "application/json"));
+        assertNull(storage.putIfAbsent("blobs/sha256/h.json", new byte[] { 2 }, "application/json"));
+
+        assertArrayEquals(new byte[] { 1 }, storage.getBytes("blobs/sha256/h.json"));
+        try (var tmp = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, tmp.count());
+        }
+    }
+
+    @Test
+    void abortedUploadLeavesNothingBehind() throws Exception {
+        UploadStream upload = storage.openUpload("users/u1/id_b.pdf", "application/pdf");
+        upload.write(new byte[1024]);
+        upload.abort();
+
+        assertNull(storage.stat("users/u1/id_b.pdf"));
+        try (var tmp = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, tmp.count());
+        }
+    }
+
+    @Test
+    void listsInKeyOrderAcrossDirectoriesAndPages() throws Exception {
+        List<String> keys = List.of("users/u1/a", "users/u1/b", "users/u1/b.x", "users/u1/c", "users/u1x/a",
+                "users/u1/sub/a", "users/u2/a", "index/x.json");
+        for (String key : keys) {
+            storage.put(key, new byte[0], null, Map.of());
+        }
+
+        List<String> listed = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ObjectPage page = storage.list("users/u1", 2, cursor);
+            page.getObjects().forEach(object -> listed.add(object.getKey()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(List.of("users/u1/a", "users/u1/b", "users/u1/b.x", "users/u1/c", "users/u1/sub/a",
+                "users/u1x/a"), listed);
+        assertEquals(3, pages);
+        assertTrue(storage.list("users/u3/", 10, null).getObjects().isEmpty());
+    }
+
+    @Test
+    void deletePrunesEmptyDirectories() throws Exception {
+        storage.put("users/u1/id_a.pdf", new byte[] { 1 }, null, Map.of());
+        storage.delete("users/u1/id_a.pdf");
+
+        assertNull(storage.stat("users/u1/id_a.pdf"));
+        try (var objects = Files.list(root.resolve("objects"))) {
+            assertEquals(0, objects.count());
+        }
+        assertTrue(storage.deleteBatch(List.of("users/u1/id_a.pdf")).isEmpty());
+    }
+
+    @Test
+    void segmentsEncodeReversibly() throws Exception {
+        for (String segment : List.of("", ".", "..", ".hidden", "a b%c", "@00", "r\u00e9sum\u00e9.pdf")) {
+            String name = FileSystemStorageBackend.encodeSegment(segment);
+            assertFalse(name.startsWith(".") || name.startsWith("@"), name);
+            assertEquals(segment, FileSystemStorageBackend.decodeSegment(name));
+        }
+        assertEquals("report_final.pdf", FileSystemStorageBackend.encodeSegment("report_final.pdf"));
+    }
+}
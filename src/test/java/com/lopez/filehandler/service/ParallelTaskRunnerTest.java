@@ -0,0 +1,110 @@
+package com.lopez.filehandler.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelTaskRunnerTest {
+
+    private final ParallelTaskRunner runner = new ParallelTaskRunner(8);
+
+    @AfterEach
+    public void shutdown() {
+        runner.shutdown();
+    }
+
+    @Test
+    public void testResultsKeepTaskOrder() throws Exception {
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            tasks.add(() -> {
+                Thread.sleep(20 - value);
+                return value;
+            });
+        }
+
+        List<Integer> results = runner.invokeAll(tasks, 4, Duration.ofSeconds(5));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, results.get(i));
+        }
+    }
+
+    @Test
+    public void testParallelismIsBounded() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            tasks.add(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                inFlight.decrementAndGet();
+                return null;
+            });
+        }
+
+        runner.invokeAll(tasks, 3, Duration.ofSeconds(5));
+
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void testFirstFailureCancelsRemainingTasks() {
+        AtomicInteger started = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            throw new IllegalStateException("boom");
+        });
+        for (int i = 0; i < 50; i++) {
+            tasks.add(() -> {
+                started.incrementAndGet();
+                Thread.sleep(50);
+                return null;
+            });
+        }
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> runner.invokeAll(tasks, 2, Duration.ofSeconds(5)));
+
+        assertEquals("boom", error.getMessage());
+        assertTrue(started.get() < 50);
+    }
+
+    @Test
+    public void testErrorIsReportedAsFailure() {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            throw new AssertionError("boom");
+        });
+        tasks.add(() -> null);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> runner.invokeAll(tasks, 1, Duration.ofSeconds(5)));
+
+        assertInstanceOf(AssertionError.class, error.getCause());
+    }
+
+    @Test
+    public void testDeadlineExpires() {
+        List<Callable<Void>> tasks = List.of(() -> {
+            Thread.sleep(5_000);
+            return null;
+        });
+
+        assertThrows(TimeoutException.class, () -> runner.invokeAll(tasks, 1, Duration.ofMillis(50)));
+    }
+}
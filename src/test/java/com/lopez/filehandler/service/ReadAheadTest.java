@@ -0,0 +1,91 @@
+package com.lopez.filehandler.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ReadAheadTest {
+
+    private final ParallelTaskRunner runner = new ParallelTaskRunner(8);
+
+    @AfterEach
+    void shutdown() {
+        runner.shutdown();
+    }
+
+    @Test
+    void opensTheNextBodiesWhileOneIsRead() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        CountDownLatch prefetched = new CountDownLatch(2);
+        ReadAhead bodies = new ReadAhead(runner, 2, Duration.ofSeconds(5));
+        List<InputStream> streams = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int index = i;
+            streams.add(bodies.add(() -> {
+                opened.incrementAndGet();
+                if (index > 0) {
+                    prefetched.countDown();
+                }
+                return new ByteArrayInputStream(new byte[] { (byte) index });
+            }));
+        }
+        assertEquals(0, opened.get());
+
+        assertEquals(0, streams.get(0).read());
+        assertTrue(prefetched.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(3, opened.get());
+
+        for (int i = 1; i < 5; i++) {
+            try (InputStream in = streams.get(i)) {
+                assertEquals(i, in.read());
+            }
+        }
+        assertEquals(5, opened.get());
+        bodies.close();
+    }
+
+    @Test
+    void closeReleasesBodiesThatWereOpenedButNeverRead() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        CountDownLatch prefetched = new CountDownLatch(3);
+        ReadAhead bodies = new ReadAhead(runner, 3, Duration.ofSeconds(5));
+        List<InputStream> streams = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            streams.add(bodies.add(() -> {
+                prefetched.countDown();
+                return new ByteArrayInputStream(new byte[1]) {
+                    @Override
+                    public void close() throws IOException {
+                        closed.incrementAndGet();
+                    }
+                };
+            }));
+        }
+
+        try (InputStream first = streams.get(0)) {
+            first.read();
+        }
+        assertTrue(prefetched.await(5, TimeUnit.SECONDS));
+        bodies.close();
+
+        // A fetch that finishes after close() closes its own body
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (closed.get() < 4 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(4, closed.get());
+    }
+}
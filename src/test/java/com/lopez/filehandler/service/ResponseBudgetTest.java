@@ -0,0 +1,39 @@
+package com.lopez.filehandler.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ResponseBudgetTest {
+
+    @Test
+    void inlinesWhileTheBodiesFitAndFallsBackToUrls() {
+        ResponseBudget budget = new ResponseBudget(10_000);
+        assertTrue(budget.reserve(3));
+        assertTrue(budget.tryInline(3000));
+        assertFalse(budget.tryInline(3000));
+        assertTrue(budget.tryInline(10));
+        assertTrue(budget.remaining() >= 0);
+    }
+
+    @Test
+    void neverSpendsMoreThanTheBudget() {
+        ResponseBudget budget = new ResponseBudget(10 * ResponseBudget.URL_ENTRY);
+        assertTrue(budget.reserve(10));
+        for (int i = 0; i < 10; i++) {
+            assertFalse(budget.tryInline(1_000_000));
+        }
+        assertEquals(0, budget.remaining());
+        assertFalse(budget.reserve(1));
+    }
+
+    @Test
+    void refusesAPageThatDoesNotFitWithoutReservingAnything() {
+        ResponseBudget budget = new ResponseBudget(5 * ResponseBudget.URL_ENTRY);
+        assertFalse(budget.reserve(6));
+        assertTrue(budget.reserve(5));
+        assertEquals(5, ResponseBudget.maxEntries(5 * ResponseBudget.URL_ENTRY + 1));
+    }
+}
@@ -0,0 +1,34 @@
+package com.lopez.filehandler.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class S3KeysTest {
+
+    @Test
+    void fileKeyRoundTrips() {
+        String key = S3Keys.fileKey("user-1", "abc-123", "report_final.pdf");
+
+        assertEquals("users/user-1/abc-123_report_final.pdf", key);
+        assertEquals("abc-123", S3Keys.fileId(key));
+        assertEquals("abc-123_report_final.pdf", S3Keys.objectName(key));
+        assertEquals("user-1", S3Keys.userId(key));
+        assertEquals("users/user-1/", S3Keys.userPrefix("user-1"));
+    }
+
+    @Test
+    void fileIdWithoutSeparatorIsTheWholeName() {
+        assertEquals("legacy", S3Keys.fileId("users/user-1/legacy"));
+        assertEquals("legacy", S3Keys.fileId("legacy"));
+    }
+
+    @Test
+    void contentTypeFollowsExtension() {
+        assertEquals("application/pdf", S3Keys.contentType("users/u/id_a.pdf"));
+        assertEquals("image/png", S3Keys.contentType("users/u/id_a.png"));
+        assertEquals("image/jpeg", S3Keys.contentType("users/u/id_a.jpg"));
+        assertEquals("image/jpeg", S3Keys.contentType("users/u/id_a.jpeg"));
+        assertEquals("application/octet-stream", S3Keys.contentType("users/u/id_a.txt"));
+    }
+}